@@ -0,0 +1,58 @@
+package toyl.benchmarks;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import toyl.ToylLanguage;
+
+/**
+ * Drives the Toyl workloads through the polyglot API. The subclasses only differ in how
+ * they are measured, see {@link ToylSteadyStateBenchmark}, {@link ToylWarmupBenchmark} and
+ * {@link ToylColdStartBenchmark}.
+ */
+@State(Scope.Thread)
+public abstract class ToylBenchmark {
+
+  @Param
+  public ToylWorkload workload;
+
+  private Context context;
+  private Source source;
+  private Source uncachedSource;
+
+  @Setup
+  public void setUp() {
+    context = Context.newBuilder(ToylLanguage.ID)
+        .option("engine.WarnInterpreterOnly", "false")
+        .build();
+    source = workload.source(true);
+    uncachedSource = workload.source(false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  /**
+   * Parses (once) and executes the program, the way a host evaluates a script.
+   */
+  @Benchmark
+  public Value eval() {
+    return context.eval(source);
+  }
+
+  /**
+   * Only parses the program. The source is not cached so every invocation reaches ToylLanguage.parse.
+   */
+  @Benchmark
+  public Value parse() {
+    return context.parse(uncachedSource);
+  }
+}
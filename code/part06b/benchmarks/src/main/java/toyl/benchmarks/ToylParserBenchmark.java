@@ -0,0 +1,61 @@
+package toyl.benchmarks;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import toyl.ToylLanguage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the front ends selected with --toyl.Parser on the same workloads. The source is not cached, so
+ * every invocation reaches ToylLanguage.parse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToylParserBenchmark {
+
+  @Param({ToylLanguage.ANTLR_PARSER, ToylLanguage.PRATT_PARSER, ToylLanguage.PARALLEL_PARSER})
+  public String parser;
+
+  @Param
+  public ToylWorkload workload;
+
+  private Context context;
+  private Source source;
+
+  @Setup
+  public void setUp() {
+    context = Context.newBuilder(ToylLanguage.ID)
+        .option("engine.WarnInterpreterOnly", "false")
+        .option("toyl.Parser", parser)
+        .build();
+    source = workload.source(false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Value parse() {
+    return context.parse(source);
+  }
+}
@@ -0,0 +1,79 @@
+package toyl.benchmarks;
+
+import org.graalvm.polyglot.Source;
+import toyl.ToylLanguage;
+
+public enum ToylWorkload {
+  /**
+   * Arithmetic which never leaves the long specializations: no overflow and only exact divisions.
+   */
+  LONG_ARITHMETIC {
+    @Override
+    String program() {
+      var program = new StringBuilder();
+      for (int i = 1; i <= STATEMENTS; i++) {
+        program.append("(%d * 7 + 3) * 2 - %d * 4 / 2 + (%d - 5) * 11%n".formatted(i, i, i));
+      }
+      return program.toString();
+    }
+  },
+  /**
+   * Arithmetic where every statement overflows a long and is promoted to BigDecimal.
+   */
+  DECIMAL_OVERFLOW {
+    @Override
+    String program() {
+      var program = new StringBuilder();
+      for (int i = 1; i <= STATEMENTS; i++) {
+        program.append("9223372036854775807 + %d - 3037000500 * 3037000500%n".formatted(i));
+      }
+      return program.toString();
+    }
+  },
+  /**
+   * Inexact divisions like 1/3 which are promoted to BigDecimal with MathContext.DECIMAL128.
+   */
+  DECIMAL_DIVISION {
+    @Override
+    String program() {
+      var program = new StringBuilder();
+      for (int i = 1; i <= STATEMENTS; i++) {
+        program.append("1/3 + %d/7 - 2/%d%n".formatted(i, i + 2));
+      }
+      return program.toString();
+    }
+  },
+  /**
+   * Declarations, assignments and references to variables held in frame slots.
+   */
+  VARIABLES {
+    @Override
+    String program() {
+      var program = new StringBuilder("""
+          var a = 1
+          var b = 2
+          var c = 0
+          """);
+      for (int i = 1; i <= STATEMENTS / 4; i++) {
+        program.append("""
+            c = a * b + c
+            a = a + 1
+            b = b + c - c
+            c = c - a * b + 7
+            """);
+      }
+      program.append("a + b + c\n");
+      return program.toString();
+    }
+  };
+
+  static final int STATEMENTS = 200;
+
+  abstract String program();
+
+  Source source(boolean cached) {
+    return Source.newBuilder(ToylLanguage.ID, program(), name().toLowerCase() + ".toyl")
+        .cached(cached)
+        .buildLiteral();
+  }
+}
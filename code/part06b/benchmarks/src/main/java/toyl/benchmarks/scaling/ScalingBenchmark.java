@@ -0,0 +1,122 @@
+package toyl.benchmarks.scaling;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import toyl.ToylLanguage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how the front end and the interpreter scale with the size and shape of generated programs.
+ * For every combination of the given dimensions it generates a program with {@link ToylProgramGenerator}
+ * and reports
+ * <ul>
+ *   <li>parse: lexing, parsing and building the Toyl nodes with {@link ToylLanguage#parseProgram}</li>
+ *   <li>peak heap: the peak heap usage while the AST is alive</li>
+ *   <li>exec: executing the already parsed program once through the polyglot API</li>
+ * </ul>
+ * The ns/stmt columns make it easy to spot where a phase stops scaling linearly.
+ *
+ * <pre>
+ * java -Xmx8g -cp benchmarks.jar toyl.benchmarks.scaling.ScalingBenchmark
+ *   [--statements 1000,10000,...] [--depth 3,...] [--variables 100,...] [--decimal 0.1,...]
+ *   [--seed N] [--repetitions N]
+ * </pre>
+ */
+public class ScalingBenchmark {
+
+  private record Measurement(long parseNanos, long peakHeapBytes, long execNanos) {
+  }
+
+  public static void main(String[] args) throws IOException {
+    List<Integer> statementCounts = List.of(1_000, 10_000, 100_000, 1_000_000, 10_000_000);
+    List<Integer> depths = List.of(3);
+    List<Integer> variableCounts = List.of(100);
+    List<Double> decimalRatios = List.of(0.1);
+    long seed = 42;
+    int repetitions = 3;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--statements" -> statementCounts = Arrays.stream(args[++i].split(",")).map(Integer::valueOf).toList();
+        case "--depth" -> depths = Arrays.stream(args[++i].split(",")).map(Integer::valueOf).toList();
+        case "--variables" -> variableCounts = Arrays.stream(args[++i].split(",")).map(Integer::valueOf).toList();
+        case "--decimal" -> decimalRatios = Arrays.stream(args[++i].split(",")).map(Double::valueOf).toList();
+        case "--seed" -> seed = Long.parseLong(args[++i]);
+        case "--repetitions" -> repetitions = Integer.parseInt(args[++i]);
+        default -> {
+          System.err.println("Unknown option " + args[i]);
+          System.exit(2);
+        }
+      }
+    }
+
+    System.out.printf("%10s %5s %5s %7s %9s %10s %8s %10s %10s %8s%n",
+        "statements", "depth", "vars", "decimal", "size MB", "parse ms", "ns/stmt", "heap MB", "exec ms", "ns/stmt");
+    for (var statements : statementCounts) {
+      for (var depth : depths) {
+        for (var variables : variableCounts) {
+          for (var decimalRatio : decimalRatios) {
+            var file = Files.createTempFile("toyl-scaling", ".toyl");
+            try {
+              try (var out = Files.newBufferedWriter(file)) {
+                new ToylProgramGenerator(statements, depth, variables, decimalRatio, seed).write(out);
+              }
+              // keep the fastest of the repetitions, the first ones also pay for class loading and JIT warmup
+              Measurement best = null;
+              for (int r = 0; r < repetitions; r++) {
+                var measurement = measure(file);
+                best = best == null ? measurement : new Measurement(
+                    Math.min(best.parseNanos(), measurement.parseNanos()),
+                    Math.min(best.peakHeapBytes(), measurement.peakHeapBytes()),
+                    Math.min(best.execNanos(), measurement.execNanos()));
+              }
+              System.out.printf("%10d %5d %5d %7.2f %9.1f %10.1f %8d %10.1f %10.1f %8d%n",
+                  statements, depth, variables, decimalRatio, Files.size(file) / 1e6,
+                  best.parseNanos() / 1e6, best.parseNanos() / statements,
+                  best.peakHeapBytes() / 1e6,
+                  best.execNanos() / 1e6, best.execNanos() / statements);
+            } finally {
+              Files.delete(file);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static Measurement measure(Path file) throws IOException {
+    System.gc();
+    var heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .toList();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+    var source = com.oracle.truffle.api.source.Source.newBuilder(ToylLanguage.ID, Files.readString(file),
+        file.getFileName().toString()).build();
+    var parseStart = System.nanoTime();
+    var ast = ToylLanguage.parseProgram(new FrameDescriptor(), source);
+    var parseEnd = System.nanoTime();
+    var peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    if (ast == null) {
+      throw new IllegalStateException("Nothing parsed");
+    }
+    ast = null;
+
+    long execNanos;
+    try (var context = Context.newBuilder(ToylLanguage.ID).option("engine.WarnInterpreterOnly", "false").build()) {
+      var program = context.parse(Source.newBuilder(ToylLanguage.ID, file.toFile()).cached(false).build());
+      var execStart = System.nanoTime();
+      program.execute();
+      execNanos = System.nanoTime() - execStart;
+    }
+    return new Measurement(parseEnd - parseStart, peakHeap, execNanos);
+  }
+}
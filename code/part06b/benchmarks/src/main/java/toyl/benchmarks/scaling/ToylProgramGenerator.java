@@ -0,0 +1,174 @@
+package toyl.benchmarks.scaling;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates syntactically and semantically valid Toyl programs of arbitrary size, in the spirit of
+ * machine-generated production scripts: a block of variable declarations followed by a mix of assignments
+ * and expression statements.
+ * <p>
+ * Assignments only ever add a bounded constant to a single variable, so variable values grow linearly
+ * with the program size instead of exploding into huge BigDecimals. Divisors are always non-zero literals.
+ *
+ * <pre>
+ * java -cp benchmarks.jar toyl.benchmarks.scaling.ToylProgramGenerator
+ *   [--statements N] [--depth N] [--variables N] [--decimal RATIO] [--seed N] [--output FILE]
+ * </pre>
+ */
+public class ToylProgramGenerator {
+
+  private static final char[] OPERATORS = {'+', '-', '*', '/'};
+
+  private final int statements;
+  private final int depth;
+  private final int variables;
+  private final double decimalRatio;
+  private final Random random;
+
+  /**
+   * @param statements   the total number of statements, including the variable declarations
+   * @param depth        the maximum depth of the binary operator trees in each expression
+   * @param variables    how many variables to declare (capped by the statement count)
+   * @param decimalRatio the probability of a literal being a decimal rather than an integer
+   * @param seed         the random seed, the same parameters and seed always give the same program
+   */
+  public ToylProgramGenerator(int statements, int depth, int variables, double decimalRatio, long seed) {
+    this.statements = statements;
+    this.depth = depth;
+    this.variables = Math.min(variables, statements);
+    this.decimalRatio = decimalRatio;
+    this.random = new Random(seed);
+  }
+
+  public void write(Writer out) throws IOException {
+    var line = new StringBuilder();
+    for (int i = 0; i < variables; i++) {
+      line.setLength(0);
+      line.append("var ").append(variableName(i)).append(" = ");
+      literalExpression(line, depth);
+      out.append(line).append('\n');
+    }
+    for (int i = variables; i < statements; i++) {
+      line.setLength(0);
+      if (variables > 0 && random.nextBoolean()) {
+        var name = variableName(random.nextInt(variables));
+        line.append(name).append(" = ").append(name).append(random.nextBoolean() ? " + (" : " - (");
+        literalExpression(line, depth - 1);
+        line.append(')');
+      } else {
+        expression(line, depth);
+      }
+      out.append(line).append('\n');
+    }
+  }
+
+  public String generate() {
+    var out = new StringWriter();
+    try {
+      write(out);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return out.toString();
+  }
+
+  private void expression(StringBuilder out, int depth) {
+    if (depth <= 0 || random.nextInt(4) == 0) {
+      if (variables > 0 && random.nextBoolean()) {
+        out.append(variableName(random.nextInt(variables)));
+      } else {
+        literal(out);
+      }
+      return;
+    }
+    var operator = OPERATORS[random.nextInt(OPERATORS.length)];
+    out.append('(');
+    expression(out, depth - 1);
+    out.append(' ').append(operator).append(' ');
+    if (operator == '/') {
+      nonZeroLiteral(out);
+    } else {
+      expression(out, depth - 1);
+    }
+    out.append(')');
+  }
+
+  private void literalExpression(StringBuilder out, int depth) {
+    if (depth <= 0 || random.nextInt(4) == 0) {
+      literal(out);
+      return;
+    }
+    var operator = OPERATORS[random.nextInt(OPERATORS.length)];
+    out.append('(');
+    literalExpression(out, depth - 1);
+    out.append(' ').append(operator).append(' ');
+    if (operator == '/') {
+      nonZeroLiteral(out);
+    } else {
+      literalExpression(out, depth - 1);
+    }
+    out.append(')');
+  }
+
+  private void literal(StringBuilder out) {
+    out.append(random.nextInt(1000));
+    if (random.nextDouble() < decimalRatio) {
+      out.append('.').append(random.nextInt(100));
+    }
+  }
+
+  private void nonZeroLiteral(StringBuilder out) {
+    out.append(1 + random.nextInt(999));
+    if (random.nextDouble() < decimalRatio) {
+      out.append('.').append(random.nextInt(100));
+    }
+  }
+
+  /**
+   * Toyl names are letters only, so variables are numbered in base 26.
+   */
+  static String variableName(int index) {
+    var name = new StringBuilder("v");
+    do {
+      name.append((char) ('a' + index % 26));
+      index /= 26;
+    } while (index > 0);
+    return name.toString();
+  }
+
+  public static void main(String[] args) throws IOException {
+    int statements = 1000;
+    int depth = 3;
+    int variables = 100;
+    double decimalRatio = 0.1;
+    long seed = 42;
+    Path output = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--statements" -> statements = Integer.parseInt(args[++i]);
+        case "--depth" -> depth = Integer.parseInt(args[++i]);
+        case "--variables" -> variables = Integer.parseInt(args[++i]);
+        case "--decimal" -> decimalRatio = Double.parseDouble(args[++i]);
+        case "--seed" -> seed = Long.parseLong(args[++i]);
+        case "--output" -> output = Path.of(args[++i]);
+        default -> {
+          System.err.println("Unknown option " + args[i]);
+          System.exit(2);
+        }
+      }
+    }
+    var generator = new ToylProgramGenerator(statements, depth, variables, decimalRatio, seed);
+    try (Writer out = output == null
+        ? new BufferedWriter(new OutputStreamWriter(System.out))
+        : Files.newBufferedWriter(output)) {
+      generator.write(out);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package toyl.benchmarks.stages;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the same workloads against the language jar of every code/partNN stage and prints a comparison
+ * table. Each stage runs in its own JVM since they all define toyl.ToylLanguage with the same id.
+ *
+ * <pre>
+ * mvn package -DskipTests   # in every stage that should be compared
+ * java -cp benchmarks/target/benchmarks.jar toyl.benchmarks.stages.StageComparison [options]
+ *   --code-dir DIR        directory holding the partNN stages (default: ..)
+ *   --stages a,b,...      only compare these stages (default: every part* directory)
+ *   --platform-classpath  file with the truffle/graal-sdk class path
+ *                         (default: benchmarks/target/stage-classpath.txt, written by mvn package)
+ *   --warmup N            warmup iterations per workload (default: 2000)
+ *   --iterations N        measured iterations per workload (default: 2000)
+ *   --regression PCT      flag throughput drops larger than PCT percent against the previous stage (default: 10)
+ * </pre>
+ */
+public class StageComparison {
+
+  private record Result(String stage, String workload, double opsPerSecond, long p50, long p90, long p99, long max,
+                        long bytesPerOp, String unsupported) {
+    boolean isSupported() {
+      return unsupported == null;
+    }
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Path codeDir = Path.of("..");
+    List<String> stages = null;
+    Path platformClasspath = Path.of("benchmarks", "target", "stage-classpath.txt");
+    int warmup = 2000;
+    int iterations = 2000;
+    double regression = 10;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--code-dir" -> codeDir = Path.of(args[++i]);
+        case "--stages" -> stages = List.of(args[++i].split(","));
+        case "--platform-classpath" -> platformClasspath = Path.of(args[++i]);
+        case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+        case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+        case "--regression" -> regression = Double.parseDouble(args[++i]);
+        default -> {
+          System.err.println("Unknown option " + args[i]);
+          System.exit(2);
+        }
+      }
+    }
+    if (stages == null) {
+      try (Stream<Path> parts = Files.list(codeDir)) {
+        stages = parts.map(p -> p.getFileName().toString()).filter(n -> n.startsWith("part")).sorted().toList();
+      }
+    }
+    if (!Files.exists(platformClasspath)) {
+      System.err.println("Missing " + platformClasspath + ", run mvn package in the benchmarks module first");
+      System.exit(1);
+    }
+    var platform = Files.readString(platformClasspath).strip();
+    var runnerClasses = extractRunner();
+
+    var results = new ArrayList<Result>();
+    for (var stage : stages) {
+      var jar = codeDir.resolve(stage).resolve("language").resolve("target").resolve("toyl.jar");
+      if (!Files.exists(jar)) {
+        System.err.printf("Skipping %s: %s not found, run mvn package in %s%n", stage, jar, stage);
+        continue;
+      }
+      System.err.printf("Running %s%n", stage);
+      results.addAll(runStage(stage, jar, platform, runnerClasses, warmup, iterations));
+    }
+    printTable(results, regression);
+  }
+
+  /**
+   * Copies the runner class out of our own class path so that the stage JVMs do not see this stage's language.
+   */
+  private static Path extractRunner() throws IOException {
+    var dir = Files.createTempDirectory("toyl-stages");
+    var resource = StageRunner.class.getName().replace('.', '/') + ".class";
+    var target = dir.resolve(resource);
+    Files.createDirectories(target.getParent());
+    try (InputStream in = StageRunner.class.getClassLoader().getResourceAsStream(resource)) {
+      Files.copy(in, target);
+    }
+    return dir;
+  }
+
+  private static List<Result> runStage(String stage, Path jar, String platform, Path runnerClasses,
+                                       int warmup, int iterations) throws IOException, InterruptedException {
+    var resultFile = Files.createTempFile("toyl-" + stage, ".txt");
+    var classpath = String.join(File.pathSeparator, jar.toString(), runnerClasses.toString(), platform);
+    var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    var process = new ProcessBuilder(java, "-cp", classpath, StageRunner.class.getName(),
+        resultFile.toString(), Integer.toString(warmup), Integer.toString(iterations))
+        // some stages print from their nodes, that is part of their cost but not of our output
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+    if (process.waitFor() != 0) {
+      System.err.printf("%s exited with %d%n", stage, process.exitValue());
+    }
+    var results = new ArrayList<Result>();
+    for (var line : Files.readAllLines(resultFile)) {
+      var fields = line.split(" ", 3);
+      if (fields[0].equals(StageRunner.RESULT)) {
+        var values = line.split(" ");
+        results.add(new Result(stage, values[1], Double.parseDouble(values[2]), Long.parseLong(values[3]),
+            Long.parseLong(values[4]), Long.parseLong(values[5]), Long.parseLong(values[6]),
+            Long.parseLong(values[7]), null));
+      } else if (fields[0].equals(StageRunner.UNSUPPORTED)) {
+        results.add(new Result(stage, fields[1], 0, 0, 0, 0, 0, 0, fields.length > 2 ? fields[2] : ""));
+      }
+    }
+    Files.delete(resultFile);
+    return results;
+  }
+
+  private static void printTable(List<Result> results, double regression) {
+    Map<String, List<Result>> byWorkload = results.stream()
+        .collect(Collectors.groupingBy(Result::workload, LinkedHashMap::new, Collectors.toList()));
+    var regressions = new ArrayList<String>();
+    for (var entry : byWorkload.entrySet()) {
+      System.out.printf("%n%s%n", entry.getKey());
+      System.out.printf("  %-8s %12s %9s %9s %9s %9s %12s %8s%n",
+          "stage", "ops/s", "p50 us", "p90 us", "p99 us", "max us", "alloc B/op", "vs prev");
+      Result previous = null;
+      for (var result : entry.getValue()) {
+        if (!result.isSupported()) {
+          System.out.printf("  %-8s %s%n", result.stage(), "n/a (" + result.unsupported() + ")");
+          continue;
+        }
+        var change = "";
+        if (previous != null) {
+          var percent = (result.opsPerSecond() / previous.opsPerSecond() - 1) * 100;
+          change = "%+.1f%%".formatted(percent);
+          if (percent < -regression) {
+            change += " !";
+            regressions.add("%s/%s: %s against %s".formatted(result.stage(), entry.getKey(), change, previous.stage()));
+          }
+        }
+        System.out.printf("  %-8s %12.0f %9.1f %9.1f %9.1f %9.1f %12d %8s%n", result.stage(), result.opsPerSecond(),
+            result.p50() / 1e3, result.p90() / 1e3, result.p99() / 1e3, result.max() / 1e3, result.bytesPerOp(),
+            change);
+        previous = result;
+      }
+    }
+    if (!regressions.isEmpty()) {
+      System.out.printf("%nThroughput regressions above %.0f%%:%n", regression);
+      regressions.forEach(r -> System.out.println("  " + r));
+    }
+  }
+}
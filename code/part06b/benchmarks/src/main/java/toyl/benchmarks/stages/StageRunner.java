@@ -0,0 +1,117 @@
+package toyl.benchmarks.stages;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs the stage workloads against whichever Toyl language is on the class path and writes one
+ * result line per workload. It is started by {@link StageComparison} in a separate JVM per stage, so it
+ * must only depend on the polyglot API: every stage ships its own toyl.ToylLanguage.
+ */
+public class StageRunner {
+
+  static final String RESULT = "RESULT";
+  static final String UNSUPPORTED = "UNSUPPORTED";
+
+  static final Map<String, String> WORKLOADS = new LinkedHashMap<>();
+
+  static {
+    // The early stages only accept a single expression, so all but the last workload are one
+    // (long) expression each.
+    var arithmetic = new StringBuilder("0");
+    var overflow = new StringBuilder("0");
+    var division = new StringBuilder("0");
+    var negation = new StringBuilder("0");
+    for (int i = 1; i <= 100; i++) {
+      arithmetic.append(" + (%d * 7 + 3) * 2 - %d * 4 / 2".formatted(i, i));
+      overflow.append(" + 9223372036854775807 + %d".formatted(i));
+      division.append(" + 1/3 + %d/7".formatted(i));
+      negation.append(" + -%d * -(3 - %d)".formatted(i, i));
+    }
+    var variables = new StringBuilder("var a = 1\n");
+    for (int i = 1; i <= 100; i++) {
+      var name = variableName(i);
+      var previous = variableName(i - 1);
+      variables.append("var %s = %s * 2 - %s + %d%n".formatted(name, previous, previous, i));
+    }
+    variables.append(variableName(100)).append('\n');
+
+    WORKLOADS.put("arithmetic", arithmetic.toString());
+    WORKLOADS.put("overflow", overflow.toString());
+    WORKLOADS.put("division", division.toString());
+    WORKLOADS.put("negation", negation.toString());
+    WORKLOADS.put("variables", variables.toString());
+  }
+
+  private static String variableName(int i) {
+    if (i == 0) {
+      return "a";
+    }
+    var name = new StringBuilder();
+    for (; i > 0; i /= 26) {
+      name.append((char) ('a' + i % 26));
+    }
+    return "v" + name;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      System.err.println("usage: StageRunner <result file> <warmup iterations> <measurement iterations>");
+      System.exit(2);
+    }
+    var resultFile = Path.of(args[0]);
+    var warmupIterations = Integer.parseInt(args[1]);
+    var measurementIterations = Integer.parseInt(args[2]);
+    try (var out = new PrintWriter(Files.newBufferedWriter(resultFile))) {
+      for (var workload : WORKLOADS.entrySet()) {
+        out.println(run(workload.getKey(), workload.getValue(), warmupIterations, measurementIterations));
+        out.flush();
+      }
+    }
+  }
+
+  private static String run(String name, String program, int warmupIterations, int measurementIterations) {
+    var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    try (var context = Context.newBuilder("toyl").option("engine.WarnInterpreterOnly", "false").build()) {
+      var source = Source.create("toyl", program);
+      for (int i = 0; i < warmupIterations; i++) {
+        context.eval(source);
+      }
+      var latencies = new long[measurementIterations];
+      var allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+      var start = System.nanoTime();
+      for (int i = 0; i < measurementIterations; i++) {
+        var iterationStart = System.nanoTime();
+        context.eval(source);
+        latencies[i] = System.nanoTime() - iterationStart;
+      }
+      var elapsed = System.nanoTime() - start;
+      var allocated = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+      Arrays.sort(latencies);
+      return String.join(" ", RESULT, name,
+          Double.toString(measurementIterations * 1e9 / elapsed),
+          Long.toString(percentile(latencies, 0.50)),
+          Long.toString(percentile(latencies, 0.90)),
+          Long.toString(percentile(latencies, 0.99)),
+          Long.toString(latencies[latencies.length - 1]),
+          Long.toString(allocated / measurementIterations));
+    } catch (PolyglotException | IllegalArgumentException e) {
+      var message = String.valueOf(e.getMessage()).lines().findFirst().orElse("");
+      return String.join(" ", UNSUPPORTED, name, message);
+    }
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+  }
+}
@@ -1,4 +1,89 @@
 package toyl;
 
+import com.oracle.truffle.api.TruffleLanguage;
+import toyl.binary.ToylParseCache;
+import toyl.optimizer.ToylOptimizer;
+import toyl.parser.ToylParseStatistics;
+import toyl.tracing.ToylSpecializationTracker;
+
+import java.nio.file.Path;
+
 public class ToylContext {
+
+  private final TruffleLanguage.Env env;
+  private final ToylSpecializationTracker specializationTracker;
+  private final ToylParseStatistics parseStatistics;
+  private final String parser;
+  private final boolean lazyParsing;
+  private final ToylOptimizer optimizer;
+  private final ToylParseCache parseCache;
+
+  public ToylContext(TruffleLanguage.Env env) {
+    this.env = env;
+    this.specializationTracker = env.getOptions().get(ToylLanguage.TraceSpecializations)
+        ? new ToylSpecializationTracker()
+        : null;
+    this.parseStatistics = env.getOptions().get(ToylLanguage.ParseStatistics) ? new ToylParseStatistics() : null;
+    this.parser = env.getOptions().get(ToylLanguage.Parser);
+    this.lazyParsing = env.getOptions().get(ToylLanguage.LazyParsing);
+    var constantFolding = env.getOptions().get(ToylLanguage.ConstantFolding);
+    var constantPropagation = env.getOptions().get(ToylLanguage.ConstantPropagation);
+    var algebraicSimplification = env.getOptions().get(ToylLanguage.AlgebraicSimplification);
+    var subexpressionElimination = env.getOptions().get(ToylLanguage.CommonSubexpressionElimination);
+    this.optimizer = constantFolding || constantPropagation || algebraicSimplification || subexpressionElimination
+        ? new ToylOptimizer(constantFolding, constantPropagation, algebraicSimplification, subexpressionElimination)
+        : null;
+    var cacheDirectory = env.getOptions().get(ToylLanguage.ParseCache);
+    var cacheBytes = env.getOptions().get(ToylLanguage.ParseCacheSize) * 1024L * 1024L;
+    this.parseCache = cacheDirectory.isEmpty()
+        ? null
+        : new ToylParseCache(Path.of(cacheDirectory), cacheBytes, env.getLogger(ToylParseCache.class));
+  }
+
+  public TruffleLanguage.Env getEnv() {
+    return env;
+  }
+
+  /**
+   * @return the tracker for specialization transitions, or null if they are not traced
+   */
+  public ToylSpecializationTracker getSpecializationTracker() {
+    return specializationTracker;
+  }
+
+  /**
+   * @return the statistics of the parses in this context, or null if they are not collected
+   */
+  public ToylParseStatistics getParseStatistics() {
+    return parseStatistics;
+  }
+
+  /**
+   * @return the front end parsing the sources of this context, ToylLanguage.ANTLR_PARSER, PRATT_PARSER or
+   * PARALLEL_PARSER
+   */
+  public String getParser() {
+    return parser;
+  }
+
+  /**
+   * @return whether the nodes of statements are only built when they are first executed
+   */
+  public boolean isLazyParsing() {
+    return lazyParsing;
+  }
+
+  /**
+   * @return the optimization passes applied to parsed programs, or null if none are enabled
+   */
+  public ToylOptimizer getOptimizer() {
+    return optimizer;
+  }
+
+  /**
+   * @return the cache of parsed programs, or null if there is none
+   */
+  public ToylParseCache getParseCache() {
+    return parseCache;
+  }
 }
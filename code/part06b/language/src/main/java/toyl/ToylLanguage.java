@@ -1,56 +1,317 @@
 package toyl;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Option;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.instrumentation.ProvidedTags;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.NodeUtil;
 import com.oracle.truffle.api.source.Source;
-import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+import org.graalvm.options.OptionType;
+import org.graalvm.options.OptionValues;
 
 import toyl.ast.ToylNode;
 import toyl.ast.ToylProgramNode;
 import toyl.ast.ToylRootNode;
+import toyl.binary.ToylAstReader;
+import toyl.optimizer.ToylOptimizer;
+import toyl.parser.ToylCharStream;
 import toyl.parser.ToylErrorListener;
+import toyl.parser.ToylLazyParser;
 import toyl.parser.ToylLexer;
-import toyl.parser.ToylParseTreeVisitor;
+import toyl.parser.ToylParallelParser;
+import toyl.parser.ToylParseStatistics;
+import toyl.parser.ToylParseListener;
+import toyl.parser.ToylPrattParser;
 import toyl.parser.ToylParser;
+import toyl.runtime.ToylBindings;
+import toyl.tracing.ToylParseEvent;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.stream.Stream;
 
 @TruffleLanguage.Registration(
     id = ToylLanguage.ID,
     name = "Toyl", defaultMimeType = ToylLanguage.MIME_TYPE,
     characterMimeTypes = ToylLanguage.MIME_TYPE,
+    byteMimeTypes = ToylLanguage.BINARY_MIME_TYPE,
     contextPolicy = TruffleLanguage.ContextPolicy.SHARED)
+@ProvidedTags({StandardTags.RootTag.class, StandardTags.StatementTag.class, StandardTags.ExpressionTag.class})
 public class ToylLanguage extends TruffleLanguage<ToylContext> {
 
   public static final String ID = "toyl";
   public static final String MIME_TYPE = "application/x-toyl";
+  /** programs precompiled to the .toylc format by {@link toyl.binary.ToylAstWriter} */
+  public static final String BINARY_MIME_TYPE = "application/x-toylc";
+
+  @Option(help = "Count specialization transitions of Toyl nodes and report them when the context is closed.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> TraceSpecializations = new OptionKey<>(false);
+
+  @Option(help = "Write the specialization transition report to this file instead of the error stream.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<String> TraceSpecializationsFile = new OptionKey<>("");
+
+  @Option(help = "Collect per phase timings and counters of parsing, available as toyl bindings member parseStatistics. "
+      + "Parsing is slower while they are collected.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> ParseStatistics = new OptionKey<>(false);
+
+  public static final String ANTLR_PARSER = "antlr";
+  public static final String PRATT_PARSER = "pratt";
+  public static final String PARALLEL_PARSER = "parallel";
+
+  @Option(help = "The front end that parses Toyl sources: antlr (the default), pratt, a hand-written "
+      + "precedence climbing parser that builds the AST in a single pass, or parallel, the pratt parser on chunks "
+      + "of large sources in parallel.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<String> Parser = new OptionKey<>(ANTLR_PARSER, new OptionType<>("antlr|pratt|parallel",
+      value -> {
+        if (!value.equals(ANTLR_PARSER) && !value.equals(PRATT_PARSER) && !value.equals(PARALLEL_PARSER)) {
+          throw new IllegalArgumentException("Unknown parser %s, expected antlr, pratt or parallel".formatted(value));
+        }
+        return value;
+      }));
+
+  @Option(help = "Check programs when they are parsed, but build the nodes of each statement only when it is first "
+      + "executed. Uses the pratt parser and bypasses the parse cache.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> LazyParsing = new OptionKey<>(false);
+
+  @Option(help = "A directory to cache parsed programs in across processes, looked up by the hash of the source "
+      + "characters. Empty (the default) for no cache.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<String> ParseCache = new OptionKey<>("");
+
+  @Option(help = "The size in megabytes the parse cache directory is kept within by evicting the least recently "
+      + "used programs.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Integer> ParseCacheSize = new OptionKey<>(256);
+
+  @Option(help = "Replace arithmetic on literals with the literal of its result when parsing.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> ConstantFolding = new OptionKey<>(false);
+
+  @Option(help = "Replace variable references with the literal or the variable their definition stores when parsing, "
+      + "and fold the arithmetic that makes foldable. Not applied with lazy parsing.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> ConstantPropagation = new OptionKey<>(false);
+
+  @Option(help = "Replace arithmetic with a long literal operand by cheaper nodes with the same result when parsing: "
+      + "drop multiplications by 1, and shift for multiplications and divisions by powers of two.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> AlgebraicSimplification = new OptionKey<>(false);
+
+  @Option(help = "Compute arithmetic that is repeated without an assignment to its variables in between only once "
+      + "when parsing, and read its value from a frame slot where it is repeated. Not applied with lazy parsing.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  public static final OptionKey<Boolean> CommonSubexpressionElimination = new OptionKey<>(false);
+
+  public static ToylContext getCurrentContext() {
+    return getCurrentContext(ToylLanguage.class);
+  }
+
+  @Override
+  protected OptionDescriptors getOptionDescriptors() {
+    return new ToylLanguageOptionDescriptors();
+  }
+
+  /**
+   * Contexts of a shared engine reuse each other's parsed programs, so only those that parse and optimize them
+   * alike are compatible.
+   */
+  @Override
+  protected boolean areOptionsCompatible(OptionValues firstOptions, OptionValues newOptions) {
+    return Stream.of(Parser, LazyParsing, ParseCache, ParseStatistics, ConstantFolding, ConstantPropagation,
+            AlgebraicSimplification, CommonSubexpressionElimination)
+        .allMatch(key -> firstOptions.get(key).equals(newOptions.get(key)));
+  }
 
   @Override
   protected ToylContext createContext(Env env) {
-    return new ToylContext();
+    return new ToylContext(env);
+  }
+
+  @Override
+  protected Object getScope(ToylContext context) {
+    return new ToylBindings(context);
+  }
+
+  @Override
+  protected void disposeContext(ToylContext context) {
+    var tracker = context.getSpecializationTracker();
+    if (tracker != null) {
+      var env = context.getEnv();
+      var file = env.getOptions().get(TraceSpecializationsFile);
+      if (file.isEmpty()) {
+        tracker.writeReport(new PrintStream(env.err(), true));
+      } else {
+        try (var out = new PrintStream(env.getPublicTruffleFile(file).newOutputStream())) {
+          tracker.writeReport(out);
+        } catch (IOException | SecurityException e) {
+          env.getLogger(ToylLanguage.class).warning("Could not write specialization report to %s: %s"
+              .formatted(file, e.getMessage()));
+        }
+      }
+    }
   }
 
   @Override
   protected CallTarget parse(ParsingRequest request) throws IOException {
     final FrameDescriptor frameDescriptor = new FrameDescriptor();
-    var statements = this.parseProgram(frameDescriptor, request.getSource());
-    var program = new ToylRootNode(this, frameDescriptor, statements);
+    var source = request.getSource();
+    if (source.hasBytes()) {
+      // a precompiled program has no characters for source sections to point into
+      var program = ToylAstReader.read(source.getBytes(), frameDescriptor, false);
+      return Truffle.getRuntime().createCallTarget(
+          new ToylRootNode(this, frameDescriptor, program, source.createUnavailableSection()));
+    }
+    var event = ToylParseEvent.start(source.getName(), source.getLength());
+    var context = getCurrentContext();
+    // the statement stubs of lazy parsing cannot be written to the parse cache
+    var cache = context.isLazyParsing() ? null : context.getParseCache();
+    var cacheKey = cache != null ? cache.key(source) : null;
+    var statements = cache != null ? cache.load(cacheKey, frameDescriptor) : null;
+    if (context.isLazyParsing()) {
+      statements = parseLazy(frameDescriptor, source, context.getParseStatistics(), context.getOptimizer());
+    } else if (statements == null) {
+      statements = switch (context.getParser()) {
+        case PRATT_PARSER -> parsePratt(frameDescriptor, source, context.getParseStatistics());
+        case PARALLEL_PARSER -> parseParallel(frameDescriptor, source, context.getParseStatistics());
+        default -> parseProgram(frameDescriptor, source, context.getParseStatistics());
+      };
+      if (cache != null) {
+        cache.store(cacheKey, statements, frameDescriptor);
+      }
+    }
+    // optimized after the cache, which holds the programs as parsed for contexts with and without optimizations
+    if (context.getOptimizer() != null && !context.isLazyParsing()) {
+      statements = context.getOptimizer().optimize(source.getName(), frameDescriptor, statements);
+    }
+    var program = new ToylRootNode(this, frameDescriptor, statements, source.createSection(0, source.getLength()));
+    ToylParseEvent.end(event, statements instanceof ToylProgramNode programNode ? programNode.getStatementCount() : 1);
     return Truffle.getRuntime().createCallTarget(program);
   }
 
-  private ToylNode parseProgram(FrameDescriptor frameDescriptor, Source source) throws IOException {
-    var lexer = new ToylLexer(CharStreams.fromReader(source.getReader()));
-    var parser = new ToylParser(new CommonTokenStream(lexer));
+  /**
+   * Parses a program with the ANTLR front end outside of a context, without optimizing it.
+   */
+  public static ToylNode parseProgram(FrameDescriptor frameDescriptor, Source source) {
+    return parseProgram(frameDescriptor, source, null);
+  }
+
+  static ToylNode parseProgram(FrameDescriptor frameDescriptor, Source source, ToylParseStatistics statistics) {
+    // the lexer reads the source's characters in place, for a ToylMappedFile straight from the mapping
+    var lexer = new ToylLexer(new ToylCharStream(source.getCharacters(), source.getName()));
+    var tokens = new CommonTokenStream(lexer);
+    var parser = new ToylParser(tokens);
+    // the AST is built by the listener while parsing, there is no parse tree to walk
+    parser.setBuildParseTree(false);
+    var builder = new ToylParseListener(frameDescriptor, parser, source.getCharacters());
+    parser.addParseListener(builder);
     lexer.removeErrorListeners();
     parser.removeErrorListeners();
     final ToylErrorListener errorListener = new ToylErrorListener(source);
+    lexer.addErrorListener(builder.getErrorListener());
     lexer.addErrorListener(errorListener);
-    parser.addErrorListener(errorListener);
-    var parseTreeVisitor = new ToylParseTreeVisitor(frameDescriptor);
-    return parseTreeVisitor.visitProgram(parser.program());
+    parser.addErrorListener(builder.getErrorListener());
+    if (statistics == null) {
+      return parse(parser, tokens, builder, errorListener);
+    }
+
+    parser.setProfile(true);
+    var start = System.nanoTime();
+    tokens.fill();
+    var lexed = System.nanoTime();
+    var program = parse(parser, tokens, builder, errorListener);
+    var parsed = System.nanoTime();
+    var predictionNanos = Arrays.stream(parser.getParseInfo().getDecisionInfo())
+        .mapToLong(decision -> decision.timeInPrediction)
+        .sum();
+    statistics.record(source.getName(), tokens.size(), builder.getParseTreeNodes(), NodeUtil.countNodes(program),
+        lexed - start, parsed - lexed, predictionNanos);
+    return program;
   }
 
+  static ToylNode parsePratt(FrameDescriptor frameDescriptor, Source source, ToylParseStatistics statistics) {
+    var parser = new ToylPrattParser(frameDescriptor, source);
+    if (statistics == null) {
+      return parser.parseProgram();
+    }
+    var start = System.nanoTime();
+    var program = parser.parseProgram();
+    var parsed = System.nanoTime();
+    // the scanner runs on demand while parsing, and there is neither a parse tree nor adaptive prediction
+    statistics.record(source.getName(), parser.getTokenCount(), ToylParseStatistics.NOT_MEASURED,
+        NodeUtil.countNodes(program), ToylParseStatistics.NOT_MEASURED, parsed - start,
+        ToylParseStatistics.NOT_MEASURED);
+    return program;
+  }
+
+  static ToylNode parseParallel(FrameDescriptor frameDescriptor, Source source, ToylParseStatistics statistics) {
+    var parser = new ToylParallelParser(frameDescriptor, source);
+    if (statistics == null) {
+      return parser.parseProgram();
+    }
+    var start = System.nanoTime();
+    var program = parser.parseProgram();
+    var parsed = System.nanoTime();
+    // the scanner runs on demand while parsing, and there is neither a parse tree nor adaptive prediction
+    statistics.record(source.getName(), parser.getTokenCount(), ToylParseStatistics.NOT_MEASURED,
+        NodeUtil.countNodes(program), ToylParseStatistics.NOT_MEASURED, parsed - start,
+        ToylParseStatistics.NOT_MEASURED);
+    return program;
+  }
+
+  static ToylNode parseLazy(FrameDescriptor frameDescriptor, Source source, ToylParseStatistics statistics,
+                            ToylOptimizer optimizer) {
+    var parser = new ToylLazyParser(frameDescriptor, source, optimizer);
+    if (statistics == null) {
+      return parser.parseProgram();
+    }
+    var start = System.nanoTime();
+    var program = parser.parseProgram();
+    var parsed = System.nanoTime();
+    // the scanner runs on demand while parsing, and there is neither a parse tree nor adaptive prediction
+    statistics.record(source.getName(), parser.getTokenCount(), ToylParseStatistics.NOT_MEASURED,
+        NodeUtil.countNodes(program), ToylParseStatistics.NOT_MEASURED, parsed - start,
+        ToylParseStatistics.NOT_MEASURED);
+    return program;
+  }
+
+  /**
+   * Parses in SLL prediction mode first, which is much faster than full LL and enough for all valid Toyl
+   * programs in practice. Only when SLL fails is the program parsed again in LL mode, which either succeeds or
+   * reports the syntax error through the error listener.
+   */
+  private static ToylNode parse(ToylParser parser, CommonTokenStream tokens, ToylParseListener builder,
+                                ToylErrorListener errorListener) {
+    parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    parser.setErrorHandler(new BailErrorStrategy());
+    try {
+      parser.program();
+    } catch (ParseCancellationException e) {
+      builder.reset();
+      tokens.seek(0);
+      parser.reset();
+      parser.addErrorListener(errorListener);
+      parser.setErrorHandler(new DefaultErrorStrategy());
+      parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      parser.program();
+    }
+    return builder.getProgram();
+  }
 }
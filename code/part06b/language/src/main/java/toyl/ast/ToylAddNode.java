@@ -1,16 +1,22 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import java.math.BigDecimal;
 
+@Introspectable
 @NodeChild("left")
 @NodeChild("right")
 public abstract class ToylAddNode extends ToylExpressionNode {
   @Specialization(rewriteOn = ArithmeticException.class)
   protected long addLongs(long leftValue, long rightValue) {
-    return Math.addExact(leftValue, rightValue);
+    try {
+      return Math.addExact(leftValue, rightValue);
+    } catch (ArithmeticException e) {
+      throw respecialize(e, "addLongs", "addNumbers");
+    }
   }
 
   @Specialization(replaces = "addLongs")
@@ -1,22 +1,28 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 
+@Introspectable
 @NodeChild("left")
 @NodeChild("right")
 public abstract class ToylDivNode extends ToylExpressionNode {
 
   @Specialization(rewriteOn = ArithmeticException.class)
   protected long divLongs(long leftValue, long rightValue) {
-    var mod = leftValue % rightValue;
-    if (mod == 0) {
-      return leftValue / rightValue;
-    } else {
-      throw new ArithmeticException();
+    try {
+      var mod = leftValue % rightValue;
+      if (mod == 0) {
+        return leftValue / rightValue;
+      } else {
+        throw new ArithmeticException("inexact division");
+      }
+    } catch (ArithmeticException e) {
+      throw respecialize(e, "divLongs", "divNumbers");
     }
   }
 
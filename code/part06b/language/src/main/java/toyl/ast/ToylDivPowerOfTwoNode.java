@@ -0,0 +1,44 @@
+package toyl.ast;
+
+import com.oracle.truffle.api.dsl.Introspectable;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Divides by a constant power of two, checking and dividing a long with a mask and a shift instead of the two
+ * divisions of ToylDivNode. The quotient is the one ToylDivNode computes, a long only if the division is exact.
+ */
+@Introspectable
+@NodeChild("operand")
+public abstract class ToylDivPowerOfTwoNode extends ToylExpressionNode {
+
+  private final int shift;
+  private final long mask;
+  private final BigDecimal divisor;
+
+  protected ToylDivPowerOfTwoNode(int shift) {
+    this.shift = shift;
+    this.mask = (1L << shift) - 1;
+    this.divisor = new BigDecimal(1L << shift);
+  }
+
+  public int getShift() {
+    return shift;
+  }
+
+  @Specialization(rewriteOn = ArithmeticException.class)
+  protected long divLong(long value) {
+    if ((value & mask) != 0) {
+      throw respecialize(new ArithmeticException("inexact division"), "divLong", "divNumber");
+    }
+    return value >> shift;
+  }
+
+  @Specialization(replaces = "divLong")
+  protected BigDecimal divNumber(BigDecimal value) {
+    return value.divide(divisor, MathContext.DECIMAL128);
+  }
+}
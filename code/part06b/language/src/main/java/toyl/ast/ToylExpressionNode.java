@@ -1,11 +1,26 @@
 package toyl.ast;
 
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.GenerateWrapper;
+import com.oracle.truffle.api.instrumentation.ProbeNode;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 
 import java.math.BigDecimal;
 
+@GenerateWrapper
 public abstract class ToylExpressionNode extends ToylNode {
   public abstract long executeLong(VirtualFrame frame) throws UnexpectedResultException;
   public abstract BigDecimal executeNumber(VirtualFrame frame);
+
+  @Override
+  public WrapperNode createWrapper(ProbeNode probe) {
+    return new ToylExpressionNodeWrapper(this, probe);
+  }
+
+  @Override
+  public boolean hasTag(Class<? extends Tag> tag) {
+    return tag == StandardTags.ExpressionTag.class || super.hasTag(tag);
+  }
 }
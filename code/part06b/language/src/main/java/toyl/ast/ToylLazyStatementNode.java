@@ -0,0 +1,50 @@
+package toyl.ast;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+/**
+ * Stands in for a statement that has not been executed yet, it only knows where the statement is in the source.
+ * The first execution parses the statement and replaces the stub with it, from then on the statement specializes
+ * like any other.
+ */
+public final class ToylLazyStatementNode extends ToylNode {
+
+  /**
+   * Parses the statement at a source section the program was already checked at.
+   */
+  public interface StatementParser {
+    ToylNode parse(int charIndex, int length);
+  }
+
+  private final StatementParser parser;
+  private ToylNode statement;
+
+  public ToylLazyStatementNode(int charIndex, int length, StatementParser parser) {
+    this.parser = parser;
+    setSourceSection(charIndex, length);
+  }
+
+  @Override
+  public Object executeGeneric(VirtualFrame frame) {
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    return materialize().executeGeneric(frame);
+  }
+
+  private ToylNode materialize() {
+    var lock = getLock();
+    lock.lock();
+    try {
+      // another thread may have parsed it while this one waited, and still be executing this stub
+      if (statement == null) {
+        statement = parser.parse(getSourceCharIndex(), getSourceLength());
+        statement.addStatementTag();
+        replace(statement, "first execution");
+        notifyInserted(statement);
+      }
+      return statement;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
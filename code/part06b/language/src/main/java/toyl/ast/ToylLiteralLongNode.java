@@ -10,6 +10,10 @@ public class ToylLiteralLongNode extends ToylExpressionNode {
     this.value = value;
   }
 
+  public long getValue() {
+    return value;
+  }
+
   @Override
   public long executeLong(VirtualFrame frame) {
     return this.value;
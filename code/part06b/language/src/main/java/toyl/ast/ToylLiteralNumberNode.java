@@ -11,6 +11,10 @@ public class ToylLiteralNumberNode extends ToylExpressionNode {
     this.value = value;
   }
 
+  public BigDecimal getValue() {
+    return value;
+  }
+
   @Override
   public long executeLong(VirtualFrame frame) throws UnexpectedResultException {
     throw new UnexpectedResultException(this.value);
@@ -1,16 +1,22 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import java.math.BigDecimal;
 
+@Introspectable
 @NodeChild("left")
 @NodeChild("right")
 public abstract class ToylMulNode extends ToylExpressionNode {
   @Specialization(rewriteOn = ArithmeticException.class)
   protected long mulLongs(long leftValue, long rightValue) {
-    return Math.multiplyExact(leftValue, rightValue);
+    try {
+      return Math.multiplyExact(leftValue, rightValue);
+    } catch (ArithmeticException e) {
+      throw respecialize(e, "mulLongs", "mulNumbers");
+    }
   }
 
   @Specialization(replaces = "mulLongs")
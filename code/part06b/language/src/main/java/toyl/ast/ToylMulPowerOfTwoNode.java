@@ -0,0 +1,42 @@
+package toyl.ast;
+
+import com.oracle.truffle.api.dsl.Introspectable;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import java.math.BigDecimal;
+
+/**
+ * Multiplies by a constant power of two with a shift, where a ToylMulNode multiplies by the literal. The product
+ * is the one ToylMulNode computes, a long unless it overflows.
+ */
+@Introspectable
+@NodeChild("operand")
+public abstract class ToylMulPowerOfTwoNode extends ToylExpressionNode {
+
+  private final int shift;
+  private final BigDecimal factor;
+
+  protected ToylMulPowerOfTwoNode(int shift) {
+    this.shift = shift;
+    this.factor = new BigDecimal(1L << shift);
+  }
+
+  public int getShift() {
+    return shift;
+  }
+
+  @Specialization(rewriteOn = ArithmeticException.class)
+  protected long mulLong(long value) {
+    var product = value << shift;
+    if (product >> shift != value) {
+      throw respecialize(new ArithmeticException("long overflow"), "mulLong", "mulNumber");
+    }
+    return product;
+  }
+
+  @Specialization(replaces = "mulLong")
+  protected BigDecimal mulNumber(BigDecimal value) {
+    return value.multiply(factor);
+  }
+}
@@ -0,0 +1,27 @@
+package toyl.ast;
+
+import com.oracle.truffle.api.dsl.Introspectable;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import java.math.BigDecimal;
+
+@Introspectable
+@NodeChild("operand")
+public abstract class ToylNegNode extends ToylExpressionNode {
+  @Specialization(rewriteOn = ArithmeticException.class)
+  protected long negLong(long value) {
+    try {
+      // only Long.MIN_VALUE has no negation in a long
+      return Math.negateExact(value);
+    } catch (ArithmeticException e) {
+      throw respecialize(e, "negLong", "negNumber");
+    }
+  }
+
+  @Specialization(replaces = "negLong")
+  protected BigDecimal negNumber(BigDecimal value) {
+    // like 0 - x, negate() would keep a negative scale
+    return BigDecimal.ZERO.subtract(value);
+  }
+}
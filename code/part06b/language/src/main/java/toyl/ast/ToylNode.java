@@ -1,14 +1,94 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.TypeSystemReference;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.GenerateWrapper;
+import com.oracle.truffle.api.instrumentation.InstrumentableNode;
+import com.oracle.truffle.api.instrumentation.ProbeNode;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
 import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.oracle.truffle.api.source.SourceSection;
+import toyl.ToylLanguage;
 import toyl.ToylTypeSystem;
-
-import java.math.BigDecimal;
+import toyl.tracing.ToylSpecializeEvent;
 
 @TypeSystemReference(ToylTypeSystem.class)
-public abstract class ToylNode extends Node {
+@GenerateWrapper
+public abstract class ToylNode extends Node implements InstrumentableNode {
+
+  private int sourceCharIndex = -1;
+  private int sourceLength;
+  private boolean hasStatementTag;
+
   public abstract Object executeGeneric(VirtualFrame frame);
+
+  public final void setSourceSection(int charIndex, int length) {
+    this.sourceCharIndex = charIndex;
+    this.sourceLength = length;
+  }
+
+  /**
+   * @return the index of the first character of this node in its source, -1 if it has no source section
+   */
+  public final int getSourceCharIndex() {
+    return sourceCharIndex;
+  }
+
+  public final int getSourceLength() {
+    return sourceLength;
+  }
+
+  public final void addStatementTag() {
+    this.hasStatementTag = true;
+  }
+
+  @Override
+  public boolean isInstrumentable() {
+    return sourceCharIndex >= 0;
+  }
+
+  @Override
+  public WrapperNode createWrapper(ProbeNode probe) {
+    return new ToylNodeWrapper(this, probe);
+  }
+
+  @Override
+  public boolean hasTag(Class<? extends Tag> tag) {
+    return tag == StandardTags.StatementTag.class && hasStatementTag;
+  }
+
+  @Override
+  @TruffleBoundary
+  public final SourceSection getSourceSection() {
+    if (sourceCharIndex < 0) {
+      return null;
+    }
+    var rootNode = getRootNode();
+    if (rootNode == null || rootNode.getSourceSection() == null) {
+      return null;
+    }
+    return rootNode.getSourceSection().getSource().createSection(sourceCharIndex, sourceLength);
+  }
+
+  /**
+   * Called from a specialization that gave up on a fast path, before rethrowing the exception that makes the
+   * DSL rewrite this node.
+   */
+  protected final ArithmeticException respecialize(ArithmeticException e, String from, String to) {
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    reportTransition("%s -> %s (%s)".formatted(from, to, e.getMessage()));
+    return e;
+  }
+
+  @TruffleBoundary
+  protected final void reportTransition(String transition) {
+    ToylSpecializeEvent.emit(this, transition);
+    var tracker = ToylLanguage.getCurrentContext().getSpecializationTracker();
+    if (tracker != null) {
+      tracker.record(this, transition);
+    }
+  }
 }
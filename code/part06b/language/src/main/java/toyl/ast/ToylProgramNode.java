@@ -1,24 +1,43 @@
 package toyl.ast;
 
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.Tag;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 
-import java.util.ArrayList;
 import java.util.List;
 public class ToylProgramNode extends ToylNode {
 
-  private final List<ToylNode> statements = new ArrayList<>();
+  @Children
+  private final ToylNode[] statements;
 
   public ToylProgramNode(List<ToylNode> statements) {
-    this.statements.addAll(statements);
+    this.statements = statements.toArray(new ToylNode[0]);
+    for (ToylNode statement : this.statements) {
+      statement.addStatementTag();
+    }
   }
 
   @Override
+  @ExplodeLoop
   public Object executeGeneric(VirtualFrame frame) {
     Object result = null;
     for (ToylNode statement : statements) {
       result = statement.executeGeneric(frame);
     }
-    return result != null ? result.toString() : null;
+    return result;
+  }
+
+  public int getStatementCount() {
+    return statements.length;
   }
 
-}
\ No newline at end of file
+  public List<ToylNode> getStatements() {
+    return List.of(statements);
+  }
+
+  @Override
+  public boolean hasTag(Class<? extends Tag> tag) {
+    return tag == StandardTags.RootTag.class || super.hasTag(tag);
+  }
+}
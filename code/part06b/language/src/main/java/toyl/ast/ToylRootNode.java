@@ -4,18 +4,41 @@ import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+import toyl.tracing.ToylExecuteEvent;
 
 public class ToylRootNode extends RootNode {
 
-  private final ToylNode program;
+  @Child
+  private ToylNode program;
+  private final SourceSection sourceSection;
+  private final String sourceName;
+  private final int statementCount;
 
-  public ToylRootNode(TruffleLanguage<?> language, FrameDescriptor frameDescriptor, ToylNode program) {
+  public ToylRootNode(TruffleLanguage<?> language, FrameDescriptor frameDescriptor, ToylNode program,
+                      SourceSection sourceSection) {
     super(language, frameDescriptor);
     this.program = program;
+    this.sourceSection = sourceSection;
+    this.sourceName = sourceSection != null ? sourceSection.getSource().getName() : null;
+    this.statementCount = program instanceof ToylProgramNode programNode ? programNode.getStatementCount() : 1;
+  }
+
+  @Override
+  public String getName() {
+    return sourceName != null ? sourceName : "<toyl>";
+  }
+
+  @Override
+  public SourceSection getSourceSection() {
+    return sourceSection;
   }
 
   @Override
   public Object execute(VirtualFrame frame) {
-    return program.executeGeneric(frame);
+    var event = ToylExecuteEvent.start(sourceName, statementCount);
+    var result = program.executeGeneric(frame);
+    ToylExecuteEvent.end(event, result);
+    return result != null ? result.toString() : null;
   }
 }
@@ -0,0 +1,50 @@
+package toyl.ast;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Introspectable;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.NodeField;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.VirtualFrame;
+
+import java.math.BigDecimal;
+
+/**
+ * Writes the value of an expression to a frame slot and evaluates to it, so that an expression can keep its place
+ * in the tree while ToylVarRefNodes elsewhere read its value. Stores like ToylAssignmentNode.
+ */
+@Introspectable
+@NodeField(name = "name", type = String.class)
+@NodeField(name = "slot", type = FrameSlot.class)
+@NodeChild("value")
+public abstract class ToylStoreNode extends ToylExpressionNode {
+
+  public abstract FrameSlot getSlot();
+  public abstract String getName();
+
+  @Specialization(guards = "isLongOrIllegal(frame)")
+  public long storeLong(VirtualFrame frame, long value) {
+    frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Long);
+    frame.setLong(getSlot(), value);
+    return value;
+  }
+
+  @Specialization(replaces = { "storeLong" })
+  public BigDecimal storeNumber(VirtualFrame frame, BigDecimal value) {
+    if (frame.getFrameDescriptor().getFrameSlotKind(getSlot()) == FrameSlotKind.Long) {
+      // every read of the slot is specialized on long, they all have to go
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      reportTransition("storeLong -> storeNumber (slot %s generalized from Long to Object)".formatted(getName()));
+    }
+    frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Object);
+    frame.setObject(getSlot(), value);
+    return value;
+  }
+
+  protected boolean isLongOrIllegal(VirtualFrame frame) {
+    var kind = frame.getFrameDescriptor().getFrameSlotKind(getSlot());
+    return kind == FrameSlotKind.Long || kind == FrameSlotKind.Illegal;
+  }
+}
@@ -1,16 +1,22 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import java.math.BigDecimal;
 
+@Introspectable
 @NodeChild("left")
 @NodeChild("right")
 public abstract class ToylSubNode extends ToylExpressionNode {
   @Specialization(rewriteOn = ArithmeticException.class)
   protected long subLongs(long leftValue, long rightValue) {
-    return Math.subtractExact(leftValue, rightValue);
+    try {
+      return Math.subtractExact(leftValue, rightValue);
+    } catch (ArithmeticException e) {
+      throw respecialize(e, "subLongs", "subNumbers");
+    }
   }
 
   @Specialization(replaces = "subLongs")
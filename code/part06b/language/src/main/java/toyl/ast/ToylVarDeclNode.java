@@ -1,5 +1,7 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.NodeField;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -9,13 +11,14 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 
 import java.math.BigDecimal;
 
+@Introspectable
 @NodeField(name = "name", type = String.class)
 @NodeField(name = "slot", type = FrameSlot.class)
 @NodeChild("expr")
 public abstract class ToylVarDeclNode extends ToylNode {
 
-  abstract FrameSlot getSlot();
-  abstract String getName();
+  public abstract FrameSlot getSlot();
+  public abstract String getName();
 
   @Specialization(guards = "isLongOrIllegal(frame)")
   public long assignLong(VirtualFrame frame, long value) {
@@ -26,6 +29,11 @@ public abstract class ToylVarDeclNode extends ToylNode {
 
   @Specialization(replaces = { "assignLong" })
   public BigDecimal assignNumber(VirtualFrame frame, BigDecimal value) {
+    if (frame.getFrameDescriptor().getFrameSlotKind(getSlot()) == FrameSlotKind.Long) {
+      // every read of the slot is specialized on long, they all have to go
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      reportTransition("assignLong -> assignNumber (slot %s generalized from Long to Object)".formatted(getName()));
+    }
     frame.getFrameDescriptor().setFrameSlotKind(getSlot(), FrameSlotKind.Object);
     frame.setObject(getSlot(), value);
     return value;
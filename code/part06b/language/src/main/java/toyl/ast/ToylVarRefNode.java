@@ -1,5 +1,6 @@
 package toyl.ast;
 
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameSlotTypeException;
@@ -7,6 +8,7 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 
 import java.math.BigDecimal;
 
+@Introspectable
 public abstract class ToylVarRefNode extends ToylExpressionNode {
   private final String name;
   protected FrameSlot slot;
@@ -16,6 +18,14 @@ public abstract class ToylVarRefNode extends ToylExpressionNode {
     this.slot = slot;
   }
 
+  public String getName() {
+    return name;
+  }
+
+  public FrameSlot getSlot() {
+    return slot;
+  }
+
   @Specialization(guards = "frame.isLong(slot)")
   public long readLong(VirtualFrame frame) {
     try {
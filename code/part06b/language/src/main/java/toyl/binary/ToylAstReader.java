@@ -0,0 +1,162 @@
+package toyl.binary;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import org.graalvm.polyglot.io.ByteSequence;
+import toyl.ast.ToylExpressionNode;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylLiteralNumberNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylVarRefNodeGen;
+import toyl.parser.ToylNodeFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+import static toyl.binary.ToylBinaryFormat.*;
+
+/**
+ * Builds a Toyl AST from the {@link ToylBinaryFormat .toylc format}, reading the bytes in place. Given a
+ * {@link ToylMappedBytes} nothing but the nodes is allocated, there is no lexer, token or parser involved.
+ * <p>
+ * The frame slots are added to the frame descriptor in the order they were written, so they get the same
+ * indices they had when the program was compiled.
+ */
+public final class ToylAstReader {
+
+  private final ByteSequence bytes;
+  private final ToylNodeFactory factory;
+  private final boolean sourceSections;
+  private final ArrayList<FrameSlot> slots = new ArrayList<>();
+  private int position;
+
+  private ToylAstReader(ByteSequence bytes, FrameDescriptor frameDescriptor, boolean sourceSections) {
+    this.bytes = bytes;
+    this.factory = new ToylNodeFactory(frameDescriptor);
+    this.sourceSections = sourceSections;
+  }
+
+  /**
+   * @param sourceSections whether to give the nodes their source sections, only when the program is run with the
+   *                       source it was compiled from
+   * @throws IOException when the bytes are not a .toylc file of this version, or end early
+   */
+  public static ToylNode read(ByteSequence bytes, FrameDescriptor frameDescriptor, boolean sourceSections)
+      throws IOException {
+    var reader = new ToylAstReader(bytes, frameDescriptor, sourceSections);
+    try {
+      reader.readHeader();
+      var program = reader.readNode();
+      if (reader.position != bytes.length()) {
+        throw new IOException("%d bytes after the end of the program".formatted(bytes.length() - reader.position));
+      }
+      return program;
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Truncated .toylc file", e);
+    }
+  }
+
+  private void readHeader() throws IOException {
+    if (bytes.length() < 5 || readInt() != MAGIC) {
+      throw new IOException("Not a .toylc file");
+    }
+    var version = readByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported .toylc version %d, expected %d".formatted(version, VERSION));
+    }
+    var slotCount = readInt();
+    for (int i = 0; i < slotCount; i++) {
+      var name = new char[readInt()];
+      for (int c = 0; c < name.length; c++) {
+        name[c] = (char) readByte();
+      }
+      slots.add(factory.declareVariable(new String(name)));
+    }
+  }
+
+  private ToylNode readNode() throws IOException {
+    var charIndex = readInt();
+    var length = readInt();
+    var node = readNode(readByte());
+    if (sourceSections && charIndex >= 0) {
+      node.setSourceSection(charIndex, length);
+    }
+    return node;
+  }
+
+  private ToylExpressionNode readExpression() throws IOException {
+    var start = position;
+    if (readNode() instanceof ToylExpressionNode expression) {
+      return expression;
+    }
+    throw new IOException("Statement where an operand was expected at byte %d".formatted(start));
+  }
+
+  private ToylNode readNode(byte tag) throws IOException {
+    return switch (tag) {
+      case PROGRAM -> {
+        var count = readInt();
+        var statements = new ArrayList<ToylNode>(count);
+        for (int i = 0; i < count; i++) {
+          statements.add(readNode());
+        }
+        yield factory.createProgram(statements);
+      }
+      case VAR_DECL -> {
+        var slot = readSlot();
+        yield factory.createVarDecl((String) slot.getIdentifier(), slot, readNode());
+      }
+      case ASSIGN -> {
+        var slot = readSlot();
+        yield factory.createAssignment((String) slot.getIdentifier(), slot, readNode());
+      }
+      default -> readExpression(tag);
+    };
+  }
+
+  private ToylExpressionNode readExpression(byte tag) throws IOException {
+    return switch (tag) {
+      case LONG -> new ToylLiteralLongNode(readLong());
+      case DECIMAL -> {
+        var scale = readInt();
+        var unscaled = new byte[readInt()];
+        for (int i = 0; i < unscaled.length; i++) {
+          unscaled[i] = readByte();
+        }
+        yield new ToylLiteralNumberNode(new BigDecimal(new BigInteger(unscaled), scale));
+      }
+      case ADD -> factory.createBinary('+', readExpression(), readExpression());
+      case SUB -> factory.createBinary('-', readExpression(), readExpression());
+      case MUL -> factory.createBinary('*', readExpression(), readExpression());
+      case DIV -> factory.createBinary('/', readExpression(), readExpression());
+      case NEG -> factory.createUnaryMinus(readExpression());
+      case VAR_REF -> {
+        var slot = readSlot();
+        yield ToylVarRefNodeGen.create((String) slot.getIdentifier(), slot);
+      }
+      default -> throw new IOException("Unknown node tag %d at byte %d".formatted(tag, position - 1));
+    };
+  }
+
+  private FrameSlot readSlot() throws IOException {
+    var index = readInt();
+    if (index < 0 || index >= slots.size()) {
+      throw new IOException("Unknown frame slot %d at byte %d".formatted(index, position - 4));
+    }
+    return slots.get(index);
+  }
+
+  private byte readByte() {
+    return bytes.byteAt(position++);
+  }
+
+  private int readInt() {
+    return (readByte() & 0xff) << 24 | (readByte() & 0xff) << 16 | (readByte() & 0xff) << 8 | (readByte() & 0xff);
+  }
+
+  private long readLong() {
+    return (long) readInt() << 32 | (readInt() & 0xffffffffL);
+  }
+}
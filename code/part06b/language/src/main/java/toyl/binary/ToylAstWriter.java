@@ -0,0 +1,134 @@
+package toyl.binary;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.source.Source;
+import toyl.ToylLanguage;
+import toyl.ast.*;
+import toyl.parser.ToylMappedFile;
+import toyl.parser.ToylPrattParser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static toyl.binary.ToylBinaryFormat.*;
+
+/**
+ * Writes a Toyl AST in the {@link ToylBinaryFormat .toylc format}, for {@link ToylAstReader} to load without
+ * parsing.
+ */
+public final class ToylAstWriter {
+
+  private final DataOutputStream out;
+  private final Map<FrameSlot, Integer> slotIndices = new HashMap<>();
+
+  private ToylAstWriter(OutputStream out) {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+  }
+
+  /**
+   * Parses a .toyl file and writes its AST to a .toylc file. Syntax and semantic errors are thrown as from
+   * parsing the file in a context.
+   */
+  public static void compile(Path toyl, Path toylc) throws IOException {
+    var source = Source.newBuilder(ToylLanguage.ID, ToylMappedFile.map(toyl), toyl.getFileName().toString())
+        .build();
+    var frameDescriptor = new FrameDescriptor();
+    var program = new ToylPrattParser(frameDescriptor, source).parseProgram();
+    try (var out = Files.newOutputStream(toylc)) {
+      write(program, frameDescriptor, out);
+    }
+  }
+
+  public static void write(ToylNode program, FrameDescriptor frameDescriptor, OutputStream out) throws IOException {
+    var writer = new ToylAstWriter(out);
+    writer.writeHeader(frameDescriptor);
+    writer.writeNode(program);
+    writer.out.flush();
+  }
+
+  private void writeHeader(FrameDescriptor frameDescriptor) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    var slots = frameDescriptor.getSlots();
+    out.writeInt(slots.size());
+    for (var slot : slots) {
+      slotIndices.put(slot, slotIndices.size());
+      var name = ((String) slot.getIdentifier()).getBytes(StandardCharsets.US_ASCII);
+      out.writeInt(name.length);
+      out.write(name);
+    }
+  }
+
+  private void writeNode(Node node) throws IOException {
+    var toylNode = (ToylNode) node;
+    out.writeInt(toylNode.getSourceCharIndex());
+    out.writeInt(toylNode.getSourceLength());
+    if (node instanceof ToylProgramNode program) {
+      var statements = program.getStatements();
+      out.writeByte(PROGRAM);
+      out.writeInt(statements.size());
+      for (var statement : statements) {
+        writeNode(statement);
+      }
+    } else if (node instanceof ToylLiteralLongNode literal) {
+      out.writeByte(LONG);
+      out.writeLong(literal.getValue());
+    } else if (node instanceof ToylLiteralNumberNode literal) {
+      var unscaled = literal.getValue().unscaledValue().toByteArray();
+      out.writeByte(DECIMAL);
+      out.writeInt(literal.getValue().scale());
+      out.writeInt(unscaled.length);
+      out.write(unscaled);
+    } else if (node instanceof ToylAddNode) {
+      writeBinary(ADD, node);
+    } else if (node instanceof ToylSubNode) {
+      writeBinary(SUB, node);
+    } else if (node instanceof ToylMulNode) {
+      writeBinary(MUL, node);
+    } else if (node instanceof ToylDivNode) {
+      writeBinary(DIV, node);
+    } else if (node instanceof ToylNegNode) {
+      out.writeByte(NEG);
+      writeNode(NodeUtil.findNodeChildren(node).get(0));
+    } else if (node instanceof ToylVarRefNode reference) {
+      out.writeByte(VAR_REF);
+      out.writeInt(slotIndex(reference.getSlot()));
+    } else if (node instanceof ToylVarDeclNode declaration) {
+      out.writeByte(VAR_DECL);
+      out.writeInt(slotIndex(declaration.getSlot()));
+      writeNode(NodeUtil.findNodeChildren(node).get(0));
+    } else if (node instanceof ToylAssignmentNode assignment) {
+      out.writeByte(ASSIGN);
+      out.writeInt(slotIndex(assignment.getSlot()));
+      writeNode(NodeUtil.findNodeChildren(node).get(0));
+    } else {
+      throw new IllegalArgumentException("Cannot write " + node.getClass().getSimpleName());
+    }
+  }
+
+  private void writeBinary(byte operator, Node node) throws IOException {
+    // the operands are the children in @NodeChild order, left then right
+    var operands = NodeUtil.findNodeChildren(node);
+    out.writeByte(operator);
+    writeNode(operands.get(0));
+    writeNode(operands.get(1));
+  }
+
+  private int slotIndex(FrameSlot slot) {
+    var index = slotIndices.get(slot);
+    if (index == null) {
+      throw new IllegalArgumentException("Slot %s is not in the frame descriptor".formatted(slot.getIdentifier()));
+    }
+    return index;
+  }
+}
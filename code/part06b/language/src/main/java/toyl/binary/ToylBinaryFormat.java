@@ -0,0 +1,41 @@
+package toyl.binary;
+
+/**
+ * The layout of a precompiled Toyl program, a .toylc file. All numbers are big endian.
+ * <pre>
+ * file:      MAGIC:int VERSION:byte slotCount:int name* node
+ * name:      length:int ASCII bytes          the frame slots in index order
+ * node:      charIndex:int length:int tag   the source section, charIndex -1 for none
+ * tag:       PROGRAM count:int node*
+ *          | LONG value:long
+ *          | DECIMAL scale:int length:int unscaled value, two's complement bytes
+ *          | ADD node node | SUB node node | MUL node node | DIV node node
+ *          | NEG node
+ *          | VAR_REF slot:int
+ *          | VAR_DECL slot:int node
+ *          | ASSIGN slot:int node
+ * </pre>
+ * A negated literal is the literal of its negation, only other unary minus operands are a {@code NEG}. The source
+ * sections are only restored when the source the program was compiled from is at hand, like in
+ * {@link ToylParseCache}.
+ */
+final class ToylBinaryFormat {
+
+  static final int MAGIC = 0x544f594c; // TOYL
+  static final byte VERSION = 3;
+
+  static final byte PROGRAM = 0;
+  static final byte LONG = 1;
+  static final byte DECIMAL = 2;
+  static final byte ADD = 3;
+  static final byte SUB = 4;
+  static final byte MUL = 5;
+  static final byte DIV = 6;
+  static final byte VAR_REF = 7;
+  static final byte VAR_DECL = 8;
+  static final byte ASSIGN = 9;
+  static final byte NEG = 10;
+
+  private ToylBinaryFormat() {
+  }
+}
@@ -0,0 +1,62 @@
+package toyl.binary;
+
+import org.graalvm.polyglot.io.ByteSequence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The bytes of a .toylc file read straight from a read-only memory mapping. Pass it as the bytes of a Source
+ * with {@link toyl.ToylLanguage#BINARY_MIME_TYPE} and {@link ToylAstReader} builds the AST from the mapping.
+ */
+public final class ToylMappedBytes implements ByteSequence {
+
+  private final ByteBuffer bytes;
+  private final int offset;
+  private final int length;
+
+  private ToylMappedBytes(ByteBuffer bytes, int offset, int length) {
+    this.bytes = bytes;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public static ToylMappedBytes map(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("%s is %d bytes, larger than the %d bytes a Toyl source can have"
+            .formatted(file, size, Integer.MAX_VALUE));
+      }
+      // the mapping stays valid after the channel is closed
+      return new ToylMappedBytes(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), 0, (int) size);
+    }
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public byte byteAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return bytes.get(offset + index);
+  }
+
+  /**
+   * @return a view of the same mapping, nothing is copied
+   */
+  @Override
+  public ByteSequence subSequence(int startIndex, int endIndex) {
+    if (startIndex < 0 || endIndex > length || startIndex > endIndex) {
+      throw new IndexOutOfBoundsException("[%d, %d) of %d".formatted(startIndex, endIndex, length));
+    }
+    return new ToylMappedBytes(bytes, offset + startIndex, endIndex - startIndex);
+  }
+}
@@ -0,0 +1,165 @@
+package toyl.binary;
+
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.source.Source;
+import toyl.ast.ToylNode;
+import toyl.errors.ToylSemanticError;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * A directory of parsed programs in the {@link ToylBinaryFormat .toylc format}, shared by all processes using it,
+ * selected with {@code --toyl.ParseCache=<directory>}. Entries are named by the SHA-256 hash of the characters of
+ * their source, so a source that changed is simply a different entry.
+ * <ul>
+ *   <li>An entry is written to a temporary file and atomically moved into place, so no process ever reads a
+ *   partial entry. Two processes storing the same entry write the same bytes.</li>
+ *   <li>A hit sets the entry's modification time, the eviction after a store deletes the least recently used
+ *   entries until the directory is within its size. An entry deleted while it is read stays readable through
+ *   the mapping.</li>
+ *   <li>The cache never fails a parse: an entry that cannot be read is deleted and the source is parsed, a store
+ *   that fails is only logged.</li>
+ * </ul>
+ */
+public final class ToylParseCache {
+
+  private static final String SUFFIX = ".toylc";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final int HASH_BLOCK = 8192;
+
+  private final Path directory;
+  private final long maxBytes;
+  private final TruffleLogger logger;
+
+  public ToylParseCache(Path directory, long maxBytes, TruffleLogger logger) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.logger = logger;
+  }
+
+  /**
+   * @return the key of the entry for the characters of the source
+   */
+  public String key(Source source) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    // the format version is part of the key, entries of other versions are never read and age out
+    digest.update(ToylBinaryFormat.VERSION);
+    var chars = source.getCharacters();
+    var block = ByteBuffer.allocate(HASH_BLOCK * 2);
+    for (int start = 0; start < chars.length(); start += HASH_BLOCK) {
+      var end = Math.min(start + HASH_BLOCK, chars.length());
+      for (int i = start; i < end; i++) {
+        block.putChar(chars.charAt(i));
+      }
+      digest.update(block.flip());
+      block.clear();
+    }
+    return "%064x".formatted(new BigInteger(1, digest.digest()));
+  }
+
+  /**
+   * @return the program parsed from a source with the key's characters, with its frame slots added to the frame
+   * descriptor, or null if there is none in the cache
+   */
+  public ToylNode load(String key, FrameDescriptor frameDescriptor) {
+    var entry = directory.resolve(key + SUFFIX);
+    if (!Files.isRegularFile(entry)) {
+      return null;
+    }
+    try {
+      var program = ToylAstReader.read(ToylMappedBytes.map(entry), frameDescriptor, true);
+      touch(entry);
+      return program;
+    } catch (NoSuchFileException e) {
+      // evicted by another process since it was found
+      return null;
+    } catch (IOException | ToylSemanticError e) {
+      logger.warning("Deleting unreadable parse cache entry %s: %s".formatted(entry, e.getMessage()));
+      for (var slot : new ArrayList<>(frameDescriptor.getSlots())) {
+        frameDescriptor.removeFrameSlot(slot.getIdentifier());
+      }
+      delete(entry);
+      return null;
+    }
+  }
+
+  public void store(String key, ToylNode program, FrameDescriptor frameDescriptor) {
+    var entry = directory.resolve(key + SUFFIX);
+    Path temporary = null;
+    try {
+      Files.createDirectories(directory);
+      temporary = Files.createTempFile(directory, entry.getFileName().toString(), TEMPORARY_SUFFIX);
+      try (var out = Files.newOutputStream(temporary)) {
+        ToylAstWriter.write(program, frameDescriptor, out);
+      }
+      try {
+        Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temporary = null;
+      evict();
+    } catch (IOException e) {
+      logger.warning("Could not store %s: %s".formatted(entry, e.getMessage()));
+    } finally {
+      if (temporary != null) {
+        delete(temporary);
+      }
+    }
+  }
+
+  private void evict() throws IOException {
+    record Entry(Path path, long size, FileTime lastUsed) {
+    }
+    var entries = new ArrayList<Entry>();
+    try (var files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (var file : files) {
+        try {
+          entries.add(new Entry(file, Files.size(file), Files.getLastModifiedTime(file)));
+        } catch (NoSuchFileException e) {
+          // evicted by another process
+        }
+      }
+    }
+    var size = entries.stream().mapToLong(Entry::size).sum();
+    entries.sort(Comparator.comparing(Entry::lastUsed));
+    for (int i = 0; i < entries.size() && size > maxBytes; i++) {
+      delete(entries.get(i).path());
+      size -= entries.get(i).size();
+    }
+  }
+
+  private void touch(Path entry) {
+    try {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // evicted by another process right after it was read
+    }
+  }
+
+  private void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // still open in another process on some platforms, the next eviction tries again
+    }
+  }
+}
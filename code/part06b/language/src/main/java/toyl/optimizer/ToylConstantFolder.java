@@ -0,0 +1,166 @@
+package toyl.optimizer;
+
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import toyl.ast.ToylAddNode;
+import toyl.ast.ToylDivNode;
+import toyl.ast.ToylExpressionNode;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylLiteralNumberNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylNegNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylSubNode;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Replaces arithmetic on literals with the literal of its result, once the front end has built the AST, so that
+ * {@code 60 * 60 * 24} is computed once when parsing instead of by three nodes that each specialize on every
+ * execution. Selected with {@code --toyl.ConstantFolding}.
+ * <p>
+ * The result is the value the arithmetic nodes compute on their first execution, which for literal operands is the
+ * value of every execution: exact long arithmetic that continues in BigDecimal on overflow, and division that stays
+ * long only when it is exact and divides with {@link MathContext#DECIMAL128} otherwise. Arithmetic that throws,
+ * like a division by zero, is left to throw when it is executed.
+ */
+public final class ToylConstantFolder {
+
+  private int foldedCount;
+
+  /**
+   * @return the number of arithmetic nodes replaced by a literal so far
+   */
+  public int getFoldedCount() {
+    return foldedCount;
+  }
+
+  /**
+   * Folds the literal arithmetic in a tree that is not part of a root node yet.
+   *
+   * @return the node to use in place of the given one, a literal if the whole tree was folded
+   */
+  public ToylNode fold(ToylNode tree) {
+    tree.adoptChildren();
+    return foldTree(tree);
+  }
+
+  private ToylNode foldTree(ToylNode node) {
+    for (var child : NodeUtil.findNodeChildren(node)) {
+      if (child instanceof ToylNode toylNode) {
+        foldTree(toylNode);
+      }
+    }
+    Object result;
+    if (node instanceof ToylNegNode) {
+      var operand = value(NodeUtil.findNodeChildren(node).get(0));
+      result = operand != null ? negate(operand) : null;
+    } else if (node instanceof ToylAddNode || node instanceof ToylSubNode || node instanceof ToylMulNode
+        || node instanceof ToylDivNode) {
+      var operands = NodeUtil.findNodeChildren(node);
+      var left = value(operands.get(0));
+      var right = value(operands.get(1));
+      result = left != null && right != null ? evaluate(node, left, right) : null;
+    } else {
+      return node;
+    }
+    if (result == null) {
+      return node;
+    }
+    var literal = createLiteral(result, node);
+    if (node.getParent() != null) {
+      node.replace(literal, "constant folding");
+    }
+    foldedCount++;
+    return literal;
+  }
+
+  /**
+   * @return the literal of a long or BigDecimal value, to take the place of the given node in the tree
+   */
+  static ToylExpressionNode createLiteral(Object value, ToylNode replaced) {
+    ToylExpressionNode literal = value instanceof Long longValue
+        ? new ToylLiteralLongNode(longValue)
+        : new ToylLiteralNumberNode((BigDecimal) value);
+    literal.setSourceSection(replaced.getSourceCharIndex(), replaced.getSourceLength());
+    if (replaced.hasTag(StandardTags.StatementTag.class)) {
+      literal.addStatementTag();
+    }
+    return literal;
+  }
+
+  /**
+   * @return the value of a literal, null for any other node
+   */
+  static Object value(Object node) {
+    if (node instanceof ToylLiteralLongNode literal) {
+      return literal.getValue();
+    }
+    if (node instanceof ToylLiteralNumberNode literal) {
+      return literal.getValue();
+    }
+    return null;
+  }
+
+  /**
+   * @return the result the node computes for the operands, null if computing it throws
+   */
+  static Object evaluate(ToylNode node, Object left, Object right) {
+    if (left instanceof Long leftValue && right instanceof Long rightValue) {
+      try {
+        return evaluateLongs(node, leftValue, rightValue);
+      } catch (ArithmeticException e) {
+        // the node rewrites itself to its BigDecimal specialization
+      }
+    }
+    try {
+      return evaluateNumbers(node, decimal(left), decimal(right));
+    } catch (ArithmeticException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the negation a ToylNegNode computes, in BigDecimal for the one long without a negation
+   */
+  static Object negate(Object value) {
+    if (value instanceof Long longValue) {
+      return longValue == Long.MIN_VALUE ? new BigDecimal(longValue).negate() : (Object) (-longValue);
+    }
+    return BigDecimal.ZERO.subtract((BigDecimal) value);
+  }
+
+  private static long evaluateLongs(ToylNode node, long left, long right) {
+    if (node instanceof ToylAddNode) {
+      return Math.addExact(left, right);
+    }
+    if (node instanceof ToylSubNode) {
+      return Math.subtractExact(left, right);
+    }
+    if (node instanceof ToylMulNode) {
+      return Math.multiplyExact(left, right);
+    }
+    if (left % right == 0) {
+      return left / right;
+    }
+    throw new ArithmeticException("inexact division");
+  }
+
+  private static BigDecimal evaluateNumbers(ToylNode node, BigDecimal left, BigDecimal right) {
+    if (node instanceof ToylAddNode) {
+      return left.add(right);
+    }
+    if (node instanceof ToylSubNode) {
+      return left.subtract(right);
+    }
+    if (node instanceof ToylMulNode) {
+      return left.multiply(right);
+    }
+    return left.divide(right, MathContext.DECIMAL128);
+  }
+
+  private static BigDecimal decimal(Object value) {
+    return value instanceof Long longValue ? new BigDecimal(longValue) : (BigDecimal) value;
+  }
+}
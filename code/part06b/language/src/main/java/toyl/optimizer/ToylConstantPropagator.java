@@ -0,0 +1,111 @@
+package toyl.optimizer;
+
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import toyl.ast.ToylAssignmentNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylProgramNode;
+import toyl.ast.ToylVarDeclNode;
+import toyl.ast.ToylVarRefNode;
+import toyl.ast.ToylVarRefNodeGen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replaces variable references whose value is known when parsing, selected with {@code --toyl.ConstantPropagation}.
+ * A program is a list of statements without branches or inputs, so the definition that reaches a reference is the
+ * last declaration or assignment of its variable before the statement it is in.
+ * <p>
+ * A reference reached by a definition that stores a literal becomes that literal. A reference reached by a
+ * definition that copies another variable reads that variable instead, as long as it was not assigned since the
+ * copy. Every statement is folded with {@link ToylConstantFolder} after its references are replaced, so that
+ * {@code var b = a * 2} stores a literal when {@code a} does, and the references to {@code b} become literals
+ * in turn.
+ * <p>
+ * The definitions themselves stay, the variables are still there for anything that reads the frame.
+ */
+public final class ToylConstantPropagator {
+
+  /**
+   * The value a definition stores: a literal value, a copy of the definition of another variable, or unknown.
+   * Definitions are compared by identity, every one is a new instance.
+   */
+  private record Definition(Object value, FrameSlot copyOf, Definition copied) {
+  }
+
+  private final ToylConstantFolder folder = new ToylConstantFolder();
+  private int propagatedCount;
+
+  /**
+   * @return the number of references replaced so far
+   */
+  public int getPropagatedCount() {
+    return propagatedCount;
+  }
+
+  /**
+   * @return the number of arithmetic nodes folded so far, including the ones only foldable after propagation
+   */
+  public int getFoldedCount() {
+    return folder.getFoldedCount();
+  }
+
+  /**
+   * Propagates the definitions of a program that is not part of a root node yet. Any other tree is only folded.
+   *
+   * @return the node to use in place of the given one
+   */
+  public ToylNode propagate(ToylNode tree) {
+    if (!(tree instanceof ToylProgramNode program)) {
+      return folder.fold(tree);
+    }
+    program.adoptChildren();
+    var definitions = new HashMap<FrameSlot, Definition>();
+    for (var statement : program.getStatements()) {
+      for (var reference : NodeUtil.findAllNodeInstances(statement, ToylVarRefNode.class)) {
+        replace(reference, definitions);
+      }
+      statement = folder.fold(statement);
+      if (statement instanceof ToylVarDeclNode declaration) {
+        define(declaration.getSlot(), NodeUtil.findNodeChildren(declaration).get(0), definitions);
+      } else if (statement instanceof ToylAssignmentNode assignment) {
+        define(assignment.getSlot(), NodeUtil.findNodeChildren(assignment).get(0), definitions);
+      }
+    }
+    return program;
+  }
+
+  private void replace(ToylVarRefNode reference, Map<FrameSlot, Definition> definitions) {
+    var definition = definitions.get(reference.getSlot());
+    if (definition == null) {
+      // read before any definition, like a declaration's initializer reading the variable it declares
+      return;
+    }
+    if (definition.value() != null) {
+      reference.replace(ToylConstantFolder.createLiteral(definition.value(), reference), "constant propagation");
+      propagatedCount++;
+    } else if (definition.copyOf() != null && definitions.get(definition.copyOf()) == definition.copied()) {
+      var copied = ToylVarRefNodeGen.create((String) definition.copyOf().getIdentifier(), definition.copyOf());
+      copied.setSourceSection(reference.getSourceCharIndex(), reference.getSourceLength());
+      if (reference.hasTag(StandardTags.StatementTag.class)) {
+        copied.addStatementTag();
+      }
+      reference.replace(copied, "copy propagation");
+      propagatedCount++;
+    }
+  }
+
+  private static void define(FrameSlot slot, Object value, Map<FrameSlot, Definition> definitions) {
+    var literal = ToylConstantFolder.value(value);
+    if (literal != null) {
+      definitions.put(slot, new Definition(literal, null, null));
+    } else if (value instanceof ToylVarRefNode reference && definitions.get(reference.getSlot()) != null) {
+      // references were replaced already, so this copies the variable the value originally came from
+      definitions.put(slot, new Definition(null, reference.getSlot(), definitions.get(reference.getSlot())));
+    } else {
+      definitions.put(slot, new Definition(null, null, null));
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package toyl.optimizer;
+
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import toyl.ToylLanguage;
+import toyl.ast.ToylNode;
+
+/**
+ * Runs the optimization passes selected for a context on the AST a front end built, before it becomes part of a
+ * ToylRootNode: constant propagation or only constant folding, then algebraic simplification on what they left,
+ * then common subexpression elimination on the simplified arithmetic. What every pass did to a program is logged
+ * at level FINE to the {@code toyl.optimizer} logger.
+ */
+public final class ToylOptimizer {
+
+  private static final TruffleLogger LOGGER = TruffleLogger.getLogger(ToylLanguage.ID, "optimizer");
+
+  private final boolean constantFolding;
+  private final boolean constantPropagation;
+  private final boolean algebraicSimplification;
+  private final boolean subexpressionElimination;
+
+  public ToylOptimizer(boolean constantFolding, boolean constantPropagation, boolean algebraicSimplification,
+                       boolean subexpressionElimination) {
+    this.constantFolding = constantFolding;
+    this.constantPropagation = constantPropagation;
+    this.algebraicSimplification = algebraicSimplification;
+    this.subexpressionElimination = subexpressionElimination;
+  }
+
+  /**
+   * Optimizes a program that is not part of a root node yet, adding the slots of the values it shares to its
+   * frame descriptor.
+   *
+   * @return the node to use in place of the given one
+   */
+  public ToylNode optimize(String sourceName, FrameDescriptor frameDescriptor, ToylNode program) {
+    int folded = 0;
+    int propagated = 0;
+    int rewritten = 0;
+    int eliminated = 0;
+    if (constantPropagation) {
+      var propagator = new ToylConstantPropagator();
+      program = propagator.propagate(program);
+      folded = propagator.getFoldedCount();
+      propagated = propagator.getPropagatedCount();
+    } else if (constantFolding) {
+      var folder = new ToylConstantFolder();
+      program = folder.fold(program);
+      folded = folder.getFoldedCount();
+    }
+    if (algebraicSimplification) {
+      var simplifier = new ToylSimplifier();
+      program = simplifier.simplify(program);
+      rewritten = simplifier.getRewriteCount();
+    }
+    if (subexpressionElimination) {
+      var eliminator = new ToylSubexpressionEliminator(frameDescriptor);
+      program = eliminator.eliminate(program);
+      eliminated = eliminator.getEliminatedCount();
+    }
+    int foldedCount = folded;
+    int propagatedCount = propagated;
+    int rewriteCount = rewritten;
+    int eliminatedCount = eliminated;
+    LOGGER.fine(() -> "optimized %s: %d folded, %d propagated, %d rewritten, %d eliminated"
+        .formatted(sourceName, foldedCount, propagatedCount, rewriteCount, eliminatedCount));
+    return program;
+  }
+
+  /**
+   * Optimizes a single statement a lazy front end built. There are no other statements to propagate definitions
+   * from or share values with, so it is only folded and simplified, and not logged.
+   *
+   * @return the node to use in place of the given one
+   */
+  public ToylNode optimizeStatement(ToylNode statement) {
+    if (constantFolding || constantPropagation) {
+      statement = new ToylConstantFolder().fold(statement);
+    }
+    return algebraicSimplification ? new ToylSimplifier().simplify(statement) : statement;
+  }
+}
@@ -0,0 +1,112 @@
+package toyl.optimizer;
+
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import toyl.ast.ToylDivNode;
+import toyl.ast.ToylDivPowerOfTwoNodeGen;
+import toyl.ast.ToylExpressionNode;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylMulPowerOfTwoNodeGen;
+import toyl.ast.ToylNegNodeGen;
+import toyl.ast.ToylNode;
+
+/**
+ * Rewrites multiplications and divisions with a long literal operand into less work with the same result, selected
+ * with {@code --toyl.AlgebraicSimplification}. The result keeps the type and scale of the unsimplified one.
+ */
+public final class ToylSimplifier {
+
+  private int rewriteCount;
+
+  /**
+   * @return the number of nodes rewritten so far
+   */
+  public int getRewriteCount() {
+    return rewriteCount;
+  }
+
+  /**
+   * Simplifies a tree that is not part of a root node yet.
+   *
+   * @return the node to use in place of the given one
+   */
+  public ToylNode simplify(ToylNode tree) {
+    tree.adoptChildren();
+    return simplifyTree(tree);
+  }
+
+  private ToylNode simplifyTree(ToylNode node) {
+    for (var child : NodeUtil.findNodeChildren(node)) {
+      if (child instanceof ToylNode toylNode) {
+        simplifyTree(toylNode);
+      }
+    }
+    var rewritten = rewrite(node);
+    if (rewritten == null) {
+      return node;
+    }
+    if (rewritten.getSourceCharIndex() < 0) {
+      rewritten.setSourceSection(node.getSourceCharIndex(), node.getSourceLength());
+    }
+    if (node.hasTag(StandardTags.StatementTag.class)) {
+      rewritten.addStatementTag();
+    }
+    if (node.getParent() != null) {
+      node.replace(rewritten, "algebraic simplification");
+    }
+    rewriteCount++;
+    return rewritten;
+  }
+
+  /**
+   * @return the simpler node computing what the given one computes, null if there is none
+   */
+  private static ToylExpressionNode rewrite(ToylNode node) {
+    var isMul = node instanceof ToylMulNode;
+    if (!isMul && !(node instanceof ToylDivNode)) {
+      return null;
+    }
+    var operands = NodeUtil.findNodeChildren(node);
+    var left = (ToylExpressionNode) operands.get(0);
+    var right = (ToylExpressionNode) operands.get(1);
+    var leftValue = left instanceof ToylLiteralLongNode literal ? (Long) literal.getValue() : null;
+    var rightValue = right instanceof ToylLiteralLongNode literal ? (Long) literal.getValue() : null;
+    if (isMul) {
+      if (isValue(rightValue, 1) || isValue(leftValue, 1)) {
+        return isValue(rightValue, 1) ? left : right;
+      }
+      if (isValue(rightValue, -1) || isValue(leftValue, -1)) {
+        return withoutSource(ToylNegNodeGen.create(isValue(rightValue, -1) ? left : right));
+      }
+      var rightShift = powerOfTwo(rightValue);
+      if (rightShift > 0) {
+        return withoutSource(ToylMulPowerOfTwoNodeGen.create(rightShift, left));
+      }
+      var leftShift = powerOfTwo(leftValue);
+      return leftShift > 0 ? withoutSource(ToylMulPowerOfTwoNodeGen.create(leftShift, right)) : null;
+    }
+    var shift = powerOfTwo(rightValue);
+    return shift >= 0 ? withoutSource(ToylDivPowerOfTwoNodeGen.create(shift, left)) : null;
+  }
+
+  private static boolean isValue(Long literal, long value) {
+    return literal != null && literal == value;
+  }
+
+  /**
+   * @return the exponent of a positive power of two that fits a long, -1 for any other value
+   */
+  private static int powerOfTwo(Long literal) {
+    return literal != null && literal > 0 && Long.bitCount(literal) == 1 ? Long.numberOfTrailingZeros(literal) : -1;
+  }
+
+  /**
+   * Marks a node created by a rewrite, it takes the source section of the node it replaces. An operand that
+   * replaces its operation keeps its own.
+   */
+  private static ToylExpressionNode withoutSource(ToylExpressionNode node) {
+    node.setSourceSection(-1, 0);
+    return node;
+  }
+}
@@ -0,0 +1,198 @@
+package toyl.optimizer;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import toyl.ast.ToylAddNode;
+import toyl.ast.ToylAssignmentNode;
+import toyl.ast.ToylDivNode;
+import toyl.ast.ToylDivPowerOfTwoNode;
+import toyl.ast.ToylExpressionNode;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylLiteralNumberNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylMulPowerOfTwoNode;
+import toyl.ast.ToylNegNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylProgramNode;
+import toyl.ast.ToylStoreNodeGen;
+import toyl.ast.ToylSubNode;
+import toyl.ast.ToylVarDeclNode;
+import toyl.ast.ToylVarRefNode;
+import toyl.ast.ToylVarRefNodeGen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes arithmetic that a program repeats only once, selected with {@code --toyl.CommonSubexpressionElimination}.
+ * The first occurrence stores its value in a synthetic {@code $} slot, the others read it.
+ */
+public final class ToylSubexpressionEliminator {
+
+  private final FrameDescriptor frameDescriptor;
+  /** the numbers of the structures of the arithmetic and the operands in the program */
+  private final Map<Node, Integer> numbers = new IdentityHashMap<>();
+  /** how often the arithmetic with a number occurs, and is still evaluated after the choices made so far */
+  private final Map<Integer, Integer> occurrences = new HashMap<>();
+  private int eliminatedCount;
+
+  public ToylSubexpressionEliminator(FrameDescriptor frameDescriptor) {
+    this.frameDescriptor = frameDescriptor;
+  }
+
+  /**
+   * @return the number of subtrees replaced by a read of the value of an earlier one so far
+   */
+  public int getEliminatedCount() {
+    return eliminatedCount;
+  }
+
+  /**
+   * Shares the repeated arithmetic of a program that is not part of a root node yet, adding a slot for every
+   * shared value to the frame descriptor of the program. Any other tree is returned as it is.
+   *
+   * @return the node to use in place of the given one
+   */
+  public ToylNode eliminate(ToylNode tree) {
+    if (!(tree instanceof ToylProgramNode program)) {
+      return tree;
+    }
+    program.adoptChildren();
+    var structures = new HashMap<String, Integer>();
+    var definitions = new HashMap<FrameSlot, Integer>();
+    for (var statement : program.getStatements()) {
+      number(statement, structures, definitions);
+      if (statement instanceof ToylVarDeclNode declaration) {
+        definitions.merge(declaration.getSlot(), 1, Integer::sum);
+      } else if (statement instanceof ToylAssignmentNode assignment) {
+        definitions.merge(assignment.getSlot(), 1, Integer::sum);
+      }
+    }
+
+    var firsts = new ArrayList<ToylExpressionNode>();
+    var repeats = new ArrayList<ToylExpressionNode>();
+    var seen = new HashSet<Integer>();
+    for (var statement : program.getStatements()) {
+      choose(statement, seen, firsts, repeats);
+    }
+
+    var slots = new HashMap<Integer, FrameSlot>();
+    for (var first : firsts) {
+      var number = numbers.get(first);
+      // repeats inside a larger repeat are not evaluated anymore, the ones left may not be enough to share
+      if (occurrences.get(number) > 1) {
+        var slot = frameDescriptor.addFrameSlot("$" + slots.size());
+        slots.put(number, slot);
+        first.replace(ToylStoreNodeGen.create(first, (String) slot.getIdentifier(), slot),
+            "common subexpression elimination");
+      }
+    }
+    for (var repeat : repeats) {
+      var slot = slots.get(numbers.get(repeat));
+      var reference = ToylVarRefNodeGen.create((String) slot.getIdentifier(), slot);
+      reference.setSourceSection(repeat.getSourceCharIndex(), repeat.getSourceLength());
+      if (repeat.hasTag(StandardTags.StatementTag.class)) {
+        reference.addStatementTag();
+      }
+      repeat.replace(reference, "common subexpression elimination");
+      eliminatedCount++;
+    }
+    return program;
+  }
+
+  /**
+   * Numbers the structures of a tree bottom up.
+   *
+   * @return the number of the tree, null if it is not an expression that can be shared
+   */
+  private Integer number(Node node, Map<String, Integer> structures, Map<FrameSlot, Integer> definitions) {
+    var operands = new ArrayList<Integer>();
+    for (var child : NodeUtil.findNodeChildren(node)) {
+      operands.add(number(child, structures, definitions));
+    }
+    String structure;
+    if (node instanceof ToylLiteralLongNode literal) {
+      structure = "long " + literal.getValue();
+    } else if (node instanceof ToylLiteralNumberNode literal) {
+      // the scale is part of the value, 2.5 and 2.50 are different operands
+      structure = "number " + literal.getValue();
+    } else if (node instanceof ToylVarRefNode reference) {
+      structure = "%s#%d".formatted(reference.getName(), definitions.getOrDefault(reference.getSlot(), 0));
+    } else if (isArithmetic(node) && !operands.contains(null)) {
+      structure = operator(node) + operands;
+    } else {
+      return null;
+    }
+    var number = structures.computeIfAbsent(structure, key -> structures.size());
+    numbers.put(node, number);
+    if (isArithmetic(node)) {
+      occurrences.merge(number, 1, Integer::sum);
+    }
+    return number;
+  }
+
+  /**
+   * Chooses the occurrences to share top down, left to right, which visits identical subtrees in the order they
+   * are evaluated in. Every occurrence of repeated arithmetic after the first becomes a read, the subtrees of it
+   * are not evaluated anymore and do not count as occurrences of their own arithmetic.
+   */
+  private void choose(Node node, Set<Integer> seen, List<ToylExpressionNode> firsts,
+                      List<ToylExpressionNode> repeats) {
+    var number = numbers.get(node);
+    if (number != null && isArithmetic(node) && occurrences.get(number) > 1) {
+      if (!seen.add(number)) {
+        repeats.add((ToylExpressionNode) node);
+        for (var operand : NodeUtil.findNodeChildren(node)) {
+          forget(operand);
+        }
+        return;
+      }
+      firsts.add((ToylExpressionNode) node);
+    }
+    for (var child : NodeUtil.findNodeChildren(node)) {
+      choose(child, seen, firsts, repeats);
+    }
+  }
+
+  private void forget(Node node) {
+    if (isArithmetic(node) && numbers.containsKey(node)) {
+      occurrences.merge(numbers.get(node), -1, Integer::sum);
+    }
+    for (var child : NodeUtil.findNodeChildren(node)) {
+      forget(child);
+    }
+  }
+
+  private static boolean isArithmetic(Node node) {
+    return node instanceof ToylAddNode || node instanceof ToylSubNode || node instanceof ToylMulNode
+        || node instanceof ToylDivNode || node instanceof ToylNegNode || node instanceof ToylMulPowerOfTwoNode
+        || node instanceof ToylDivPowerOfTwoNode;
+  }
+
+  private static String operator(Node node) {
+    if (node instanceof ToylMulPowerOfTwoNode multiplication) {
+      return "<<" + multiplication.getShift();
+    }
+    if (node instanceof ToylDivPowerOfTwoNode division) {
+      return ">>" + division.getShift();
+    }
+    if (node instanceof ToylAddNode) {
+      return "+";
+    }
+    if (node instanceof ToylSubNode) {
+      return "-";
+    }
+    if (node instanceof ToylMulNode) {
+      return "*";
+    }
+    return node instanceof ToylDivNode ? "/" : "neg";
+  }
+}
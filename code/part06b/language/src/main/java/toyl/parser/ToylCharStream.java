@@ -0,0 +1,88 @@
+package toyl.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * An ANTLR CharStream over the characters of a Source, read in place. {@code CharStreams.fromReader} copies the
+ * whole source into a code point buffer of four bytes per character, this reads the Source's own characters, and
+ * for a {@link ToylMappedFile} the bytes of the mapping.
+ * <p>
+ * Every char is one symbol. That is exact for the ASCII Toyl tokens, a character outside the BMP only shows up
+ * as two symbols in a token recognition error.
+ */
+public final class ToylCharStream implements CharStream {
+
+  private final CharSequence chars;
+  private final int size;
+  private final String sourceName;
+  private int position;
+
+  public ToylCharStream(CharSequence chars, String sourceName) {
+    this.chars = chars;
+    this.size = chars.length();
+    this.sourceName = sourceName == null || sourceName.isEmpty() ? IntStream.UNKNOWN_SOURCE_NAME : sourceName;
+  }
+
+  @Override
+  public void consume() {
+    if (position >= size) {
+      throw new IllegalStateException("cannot consume EOF");
+    }
+    position++;
+  }
+
+  @Override
+  public int LA(int i) {
+    if (i == 0) {
+      return 0;
+    }
+    var index = i > 0 ? position + i - 1 : position + i;
+    if (index < 0 || index >= size) {
+      return IntStream.EOF;
+    }
+    return chars.charAt(index);
+  }
+
+  @Override
+  public int mark() {
+    return -1;
+  }
+
+  @Override
+  public void release(int marker) {
+  }
+
+  @Override
+  public int index() {
+    return position;
+  }
+
+  @Override
+  public void seek(int index) {
+    position = Math.min(index, size);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String getSourceName() {
+    return sourceName;
+  }
+
+  @Override
+  public String getText(Interval interval) {
+    var start = Math.min(interval.a, size);
+    var stop = Math.min(interval.b, size - 1);
+    return stop < start ? "" : chars.subSequence(start, stop + 1).toString();
+  }
+
+  @Override
+  public String toString() {
+    return chars.toString();
+  }
+}
@@ -0,0 +1,220 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.source.Source;
+import toyl.ast.ToylNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A front end for sources that are edited and parsed again, like the script of an editor. After an edit it only
+ * reparses the statements the edit touches, the others keep their nodes and specializations.
+ */
+public final class ToylIncrementalParser {
+
+  private record Statement(ToylNode node, int start, int end, List<ToylRecordingNodeFactory.Variable> variables) {
+  }
+
+  private final FrameDescriptor frameDescriptor;
+  private Source source;
+  private List<Statement> statements;
+  private int reparsedStatementCount;
+  private final List<String> addedSlots = new ArrayList<>();
+
+  public ToylIncrementalParser(FrameDescriptor frameDescriptor, Source source) {
+    this.frameDescriptor = frameDescriptor;
+    this.source = source;
+  }
+
+  /**
+   * @return the source of the last program parsed, with all edits applied
+   */
+  public Source getSource() {
+    return source;
+  }
+
+  /**
+   * @return the number of statements the last parse built nodes for, the others were taken from the previous one
+   */
+  public int getReparsedStatementCount() {
+    return reparsedStatementCount;
+  }
+
+  public ToylNode parseProgram() {
+    var factory = new ToylRecordingNodeFactory(frameDescriptor, this::slot);
+    var parser = new ToylPrattParser(source, factory, 0, source.getLength());
+    var parsed = new ArrayList<Statement>();
+    try {
+      while (true) {
+        var start = parser.tokenStart();
+        var node = parser.parseNextStatement(parsed.isEmpty());
+        if (node == null) {
+          break;
+        }
+        parsed.add(new Statement(node, start, parser.previousEnd(), factory.takeVariables()));
+      }
+      check(parsed);
+    } catch (RuntimeException e) {
+      removeAddedSlots();
+      throw e;
+    }
+    addedSlots.clear();
+    statements = parsed;
+    reparsedStatementCount = parsed.size();
+    return createProgram(factory);
+  }
+
+  /**
+   * Applies an edit to the source of the last program and parses it again. The nodes of the statements the edit
+   * does not touch move to the new program, so the previous one must not be executed any more.
+   *
+   * @param offset        the index of the first character the edit removes or inserts before
+   * @param removedLength the number of characters removed at the offset
+   * @param inserted      the characters inserted at the offset
+   * @return the program of the edited source
+   */
+  public ToylNode reparse(int offset, int removedLength, CharSequence inserted) {
+    if (statements == null) {
+      throw new IllegalStateException("The source has not been parsed yet");
+    }
+    var chars = source.getCharacters();
+    if (offset < 0 || removedLength < 0 || offset + removedLength > chars.length()) {
+      throw new IndexOutOfBoundsException("Edit of %d characters at %d outside of a source of %d characters"
+          .formatted(removedLength, offset, chars.length()));
+    }
+    var text = new StringBuilder(chars.length() - removedLength + inserted.length())
+        .append(chars, 0, offset)
+        .append(inserted)
+        .append(chars, offset + removedLength, chars.length())
+        .toString();
+    var edited = Source.newBuilder(source.getLanguage(), text, source.getName()).build();
+    var delta = inserted.length() - removedLength;
+
+    // an edit up to the first character of a statement can make the statement before it continue, one after it
+    // cannot: a statement never starts with an operator, or the statement before it would have continued with it
+    var first = firstEndingAtOrAfter(offset);
+    if (first > 0 && (first == statements.size() || offset <= statements.get(first).start())) {
+      first--;
+    }
+    var from = first == 0 ? 0 : statements.get(first).start();
+    var editEnd = offset + removedLength;
+    var factory = new ToylRecordingNodeFactory(frameDescriptor, this::slot);
+    var parser = new ToylPrattParser(edited, factory, from, edited.getLength());
+    var reparsed = new ArrayList<Statement>();
+    var next = first;
+    List<Statement> merged;
+    FrameDescriptor declared;
+    try {
+      while (true) {
+        var start = parser.tokenStart();
+        // the statements from a boundary after the edit that was a boundary before it are the previous ones
+        while (next < statements.size()
+            && (statements.get(next).start() < editEnd || statements.get(next).start() + delta < start)) {
+          next++;
+        }
+        if (next < statements.size() && statements.get(next).start() + delta == start) {
+          break;
+        }
+        var node = parser.parseNextStatement(from == 0 && reparsed.isEmpty());
+        if (node == null) {
+          break;
+        }
+        reparsed.add(new Statement(node, start, parser.previousEnd(), factory.takeVariables()));
+      }
+      merged = new ArrayList<>(first + reparsed.size() + statements.size() - next);
+      merged.addAll(statements.subList(0, first));
+      merged.addAll(reparsed);
+      for (var statement : statements.subList(next, statements.size())) {
+        merged.add(new Statement(statement.node(), statement.start() + delta, statement.end() + delta,
+            statement.variables()));
+      }
+      declared = check(merged);
+    } catch (RuntimeException e) {
+      removeAddedSlots();
+      throw e;
+    }
+    addedSlots.clear();
+
+    for (var statement : statements.subList(next, statements.size())) {
+      moveSourceSections(statement.node(), delta);
+    }
+    for (var statement : statements.subList(first, next)) {
+      for (var variable : statement.variables()) {
+        if (variable.use() == ToylRecordingNodeFactory.DECLARE && declared.findFrameSlot(variable.name()) == null) {
+          frameDescriptor.removeFrameSlot(variable.name());
+        }
+      }
+    }
+    source = edited;
+    statements = merged;
+    reparsedStatementCount = reparsed.size();
+    return createProgram(factory);
+  }
+
+  private FrameSlot slot(String name) {
+    var slot = frameDescriptor.findFrameSlot(name);
+    if (slot == null) {
+      slot = frameDescriptor.addFrameSlot(name);
+      addedSlots.add(name);
+    }
+    return slot;
+  }
+
+  /**
+   * Undoes the slots a parse that failed added, the program it leaves in place does not use them.
+   */
+  private void removeAddedSlots() {
+    for (var name : addedSlots) {
+      frameDescriptor.removeFrameSlot(name);
+    }
+    addedSlots.clear();
+  }
+
+  private int firstEndingAtOrAfter(int offset) {
+    var low = 0;
+    var high = statements.size();
+    while (low < high) {
+      var middle = (low + high) >>> 1;
+      if (statements.get(middle).end() < offset) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the frame descriptor of the scratch factory the variables were checked with
+   */
+  private static FrameDescriptor check(List<Statement> statements) {
+    var declared = new FrameDescriptor();
+    var checker = new ToylNodeFactory(declared);
+    for (var statement : statements) {
+      ToylRecordingNodeFactory.check(checker, statement.variables());
+    }
+    return declared;
+  }
+
+  private ToylNode createProgram(ToylNodeFactory factory) {
+    var nodes = new ArrayList<ToylNode>(statements.size());
+    for (var statement : statements) {
+      nodes.add(statement.node());
+    }
+    var program = factory.createProgram(nodes);
+    var start = statements.get(0).start();
+    program.setSourceSection(start, statements.get(statements.size() - 1).end() - start);
+    return program;
+  }
+
+  private static void moveSourceSections(ToylNode statement, int delta) {
+    statement.accept(node -> {
+      if (node instanceof ToylNode toylNode && toylNode.getSourceCharIndex() >= 0) {
+        toylNode.setSourceSection(toylNode.getSourceCharIndex() + delta, toylNode.getSourceLength());
+      }
+      return true;
+    });
+  }
+}
@@ -0,0 +1,85 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.source.Source;
+import toyl.ast.ToylLazyStatementNode;
+import toyl.ast.ToylNode;
+import toyl.optimizer.ToylOptimizer;
+
+import java.util.ArrayList;
+
+/**
+ * A front end that builds the nodes of a statement only when it is first executed, selected with
+ * {@code --toyl.LazyParsing}. Parsing checks the program with the pratt parser without building any nodes, so a
+ * program with a syntax or semantic error still fails to parse with the same error, and declares its variables.
+ * The program node then holds a {@link ToylLazyStatementNode} with the source section of every statement.
+ * <p>
+ * A statement is parsed again when its stub is first executed. The variables were declared and checked by then,
+ * so its declarations look up their slots instead of declaring them. With an optimizer, a statement is optimized
+ * when it is built.
+ */
+public final class ToylLazyParser {
+
+  private final FrameDescriptor frameDescriptor;
+  private final Source source;
+  private final ToylOptimizer optimizer;
+  private int tokenCount;
+
+  public ToylLazyParser(FrameDescriptor frameDescriptor, Source source) {
+    this(frameDescriptor, source, null);
+  }
+
+  /**
+   * @param optimizer optimizes every statement when it is built, null to build it as parsed
+   */
+  public ToylLazyParser(FrameDescriptor frameDescriptor, Source source, ToylOptimizer optimizer) {
+    this.frameDescriptor = frameDescriptor;
+    this.source = source;
+    this.optimizer = optimizer;
+  }
+
+  /**
+   * @return the number of tokens scanned by the check, like {@link ToylPrattParser#getTokenCount()}
+   */
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+  public ToylNode parseProgram() {
+    var checker = new ToylPrattParser(frameDescriptor, source);
+    var start = checker.tokenStart();
+    var bounds = checker.checkStatements();
+    tokenCount = checker.getTokenCount();
+
+    var factory = new CheckedNodeFactory(frameDescriptor);
+    ToylLazyStatementNode.StatementParser statementParser = (charIndex, length) -> {
+      var statement = new ToylPrattParser(source, factory, charIndex, charIndex + length).parseStatements().get(0);
+      return optimizer != null ? optimizer.optimizeStatement(statement) : statement;
+    };
+    var statements = new ArrayList<ToylNode>(bounds.length / 2);
+    for (int i = 0; i < bounds.length; i += 2) {
+      statements.add(new ToylLazyStatementNode(bounds[i], bounds[i + 1] - bounds[i], statementParser));
+    }
+    var program = factory.createProgram(statements);
+    program.setSourceSection(start, bounds[bounds.length - 1] - start);
+    return program;
+  }
+
+  /**
+   * Builds the nodes of statements whose variables were declared and checked already.
+   */
+  private static final class CheckedNodeFactory extends ToylNodeFactory {
+    private final FrameDescriptor frameDescriptor;
+
+    CheckedNodeFactory(FrameDescriptor frameDescriptor) {
+      super(frameDescriptor);
+      this.frameDescriptor = frameDescriptor;
+    }
+
+    @Override
+    public FrameSlot declareVariable(String name) {
+      return frameDescriptor.findFrameSlot(name);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package toyl.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The characters of a Toyl file read straight from a read-only memory mapping, one byte per character. All Toyl
+ * tokens are ASCII, so this is exact for every valid program, other bytes are read as ISO-8859-1 and end up in
+ * a token recognition error.
+ * <p>
+ * Pass it as the characters of a Source and neither the Source, ToylCharStream nor the pratt parser copy the
+ * file to the heap, the operating system pages it in and out as needed. Sources are indexed by int, so a
+ * mapped file can be at most 2 GB.
+ */
+public final class ToylMappedFile implements CharSequence {
+
+  private final ByteBuffer bytes;
+  private final int offset;
+  private final int length;
+
+  private ToylMappedFile(ByteBuffer bytes, int offset, int length) {
+    this.bytes = bytes;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public static ToylMappedFile map(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("%s is %d bytes, larger than the %d bytes a Toyl source can have"
+            .formatted(file, size, Integer.MAX_VALUE));
+      }
+      // the mapping stays valid after the channel is closed
+      return new ToylMappedFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), 0, (int) size);
+    }
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return (char) (bytes.get(offset + index) & 0xff);
+  }
+
+  /**
+   * @return a view of the same mapping, nothing is copied
+   */
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException("[%d, %d) of %d".formatted(start, end, length));
+    }
+    return new ToylMappedFile(bytes, offset + start, end - start);
+  }
+
+  @Override
+  public String toString() {
+    var chars = new byte[length];
+    bytes.get(offset, chars);
+    return new String(chars, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,65 @@
+package toyl.parser;
+
+/**
+ * Interns the variable names of one parse, looked up by their characters in the source. A name is only copied
+ * into a String the first time it occurs, every later occurrence returns the same String without allocating.
+ */
+final class ToylNameTable {
+
+  private String[] names = new String[64];
+  private int size;
+
+  String intern(CharSequence chars, int start, int end) {
+    // the same hash String.hashCode computes, so it can be compared to the hash of the names in the table
+    var hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + chars.charAt(i);
+    }
+    var mask = names.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      var name = names[i];
+      if (name == null) {
+        name = chars.subSequence(start, end).toString();
+        names[i] = name;
+        if (++size * 2 > names.length) {
+          grow();
+        }
+        return name;
+      }
+      if (name.hashCode() == hash && matches(name, chars, start, end)) {
+        return name;
+      }
+    }
+  }
+
+  private static boolean matches(String name, CharSequence chars, int start, int end) {
+    if (name.length() != end - start) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != chars.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void grow() {
+    var old = names;
+    names = new String[old.length * 2];
+    var mask = names.length - 1;
+    for (var name : old) {
+      if (name != null) {
+        var i = spread(name.hashCode()) & mask;
+        while (names[i] != null) {
+          i = (i + 1) & mask;
+        }
+        names[i] = name;
+      }
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
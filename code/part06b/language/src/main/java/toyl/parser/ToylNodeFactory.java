@@ -0,0 +1,118 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import toyl.ast.*;
+import toyl.errors.ToylSemanticError;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Creates the Toyl nodes for the front ends and does the semantic checks on variables, so that every front end
+ * builds the same AST and reports the same semantic errors. Source sections are left to the caller.
+ */
+public class ToylNodeFactory {
+  private final FrameDescriptor frameDescriptor;
+
+  public ToylNodeFactory(FrameDescriptor frameDescriptor) {
+    this.frameDescriptor = frameDescriptor;
+  }
+
+  public ToylProgramNode createProgram(List<ToylNode> statements) {
+    return new ToylProgramNode(statements);
+  }
+
+  public ToylExpressionNode createNumberLiteral(String text) {
+    return createNumberLiteral(text, 0, text.length());
+  }
+
+  /**
+   * Creates the literal for the LITERAL_NUMBER token between start and end. A number that fits a long, including
+   * one with a fraction of zeros like 2.0, is parsed straight from the characters, only other numbers are parsed
+   * as a BigDecimal.
+   */
+  public ToylExpressionNode createNumberLiteral(CharSequence chars, int start, int end) {
+    var value = 0L;
+    var i = start;
+    for (; i < end && chars.charAt(i) != '.'; i++) {
+      var digit = chars.charAt(i) - '0';
+      if (value > (Long.MAX_VALUE - digit) / 10) {
+        return createDecimalLiteral(chars, start, end);
+      }
+      value = value * 10 + digit;
+    }
+    for (i++; i < end; i++) {
+      if (chars.charAt(i) != '0') {
+        return createDecimalLiteral(chars, start, end);
+      }
+    }
+    return new ToylLiteralLongNode(value);
+  }
+
+  private static ToylExpressionNode createDecimalLiteral(CharSequence chars, int start, int end) {
+    return new ToylLiteralNumberNode(new BigDecimal(chars.subSequence(start, end).toString()));
+  }
+
+  public ToylExpressionNode createBinary(char operator, ToylExpressionNode left, ToylExpressionNode right) {
+    return switch (operator) {
+      case '+' -> ToylAddNodeGen.create(left, right);
+      case '-' -> ToylSubNodeGen.create(left, right);
+      case '/' -> ToylDivNodeGen.create(left, right);
+      case '*' -> ToylMulNodeGen.create(left, right);
+      default -> throw new IllegalStateException("Unexpected arithmetic operator: " + operator);
+    };
+  }
+
+  /**
+   * Creates the negation of the operand, for a literal the literal of its negation, so {@code -5} is a literal.
+   */
+  public ToylExpressionNode createUnaryMinus(ToylExpressionNode operand) {
+    if (operand instanceof ToylLiteralLongNode literal) {
+      // a literal is never Long.MIN_VALUE, the digits of its negation do not fit a long
+      return new ToylLiteralLongNode(-literal.getValue());
+    }
+    if (operand instanceof ToylLiteralNumberNode literal) {
+      return new ToylLiteralNumberNode(BigDecimal.ZERO.subtract(literal.getValue()));
+    }
+    return ToylNegNodeGen.create(operand);
+  }
+
+  public ToylExpressionNode createVarRef(String name) {
+    return ToylVarRefNodeGen.create(name, findReferencedVariable(name));
+  }
+
+  public FrameSlot findReferencedVariable(String name) {
+    var slot = this.frameDescriptor.findFrameSlot(name);
+    if (slot == null) {
+      throw new ToylSemanticError("Use of undeclared variable " + name);
+    }
+    return slot;
+  }
+
+  /**
+   * Declares the variable before its initializer is built, the initializer may already refer to it.
+   */
+  public FrameSlot declareVariable(String name) {
+    if (this.frameDescriptor.findFrameSlot(name) != null) {
+      throw new ToylSemanticError("Attempt to redeclare previously declared variable " + name);
+    }
+    return this.frameDescriptor.addFrameSlot(name);
+  }
+
+  public ToylNode createVarDecl(String name, FrameSlot slot, ToylNode value) {
+    return ToylVarDeclNodeGen.create(value, name, slot);
+  }
+
+  public FrameSlot findAssignedVariable(String name) {
+    var slot = this.frameDescriptor.findFrameSlot(name);
+    if (slot == null) {
+      throw new ToylSemanticError("Attempt to assign undeclared variable " + name);
+    }
+    return slot;
+  }
+
+  public ToylNode createAssignment(String name, FrameSlot slot, ToylNode value) {
+    return ToylAssignmentNodeGen.create(value, name, slot);
+  }
+}
@@ -0,0 +1,217 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.source.Source;
+import toyl.ast.ToylNode;
+import toyl.errors.ToylParseError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parses large sources with the pratt parser on chunks that start at statement boundaries, concurrently on the
+ * common fork-join pool. Selected with {@code --toyl.Parser=parallel}.
+ * <p>
+ * Toyl has no statement separators, so a chunk only starts at a token no expression can continue with: a
+ * {@code var}, or a name followed by {@code =} that does not follow a {@code var}. When every chunk parses, the
+ * statements are the ones a sequential parse finds. When any chunk has a syntax error, the boundaries may have
+ * been wrong, and the whole source is parsed again sequentially for the exact error.
+ * <p>
+ * Chunks cannot check their variables, the declarations they depend on may be in an earlier chunk. They take
+ * the frame slots from a table shared by all chunks and record every declaration, reference and assignment.
+ * Once all chunks are parsed the records are checked in source order with {@link ToylNodeFactory}, which throws
+ * the same ToylSemanticError a sequential parse throws.
+ */
+public final class ToylParallelParser {
+
+  /** sources shorter than two chunks of this length are parsed sequentially */
+  public static final int DEFAULT_MIN_CHUNK_LENGTH = 256 * 1024;
+
+  private record Chunk(List<ToylNode> statements, List<ToylRecordingNodeFactory.Variable> variables, int start,
+                       int end, int tokens) {
+  }
+
+  private final FrameDescriptor frameDescriptor;
+  private final Source source;
+  private final int minChunkLength;
+  private final ConcurrentHashMap<String, FrameSlot> slots = new ConcurrentHashMap<>();
+  private int chunkCount;
+  private int tokenCount;
+
+  public ToylParallelParser(FrameDescriptor frameDescriptor, Source source) {
+    this(frameDescriptor, source, DEFAULT_MIN_CHUNK_LENGTH);
+  }
+
+  /**
+   * @param minChunkLength the length of the shortest chunk, sources shorter than two chunks are parsed
+   *                       sequentially
+   */
+  public ToylParallelParser(FrameDescriptor frameDescriptor, Source source, int minChunkLength) {
+    this.frameDescriptor = frameDescriptor;
+    this.source = source;
+    this.minChunkLength = minChunkLength;
+  }
+
+  /**
+   * @return the number of chunks parsed concurrently, 1 when the source was parsed sequentially
+   */
+  public int getChunkCount() {
+    return chunkCount;
+  }
+
+  /**
+   * @return the number of tokens scanned, like {@link ToylPrattParser#getTokenCount()}
+   */
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+  public ToylNode parseProgram() {
+    var boundaries = split(source.getCharacters(), ForkJoinPool.getCommonPoolParallelism() * 4);
+    if (boundaries.length > 2) {
+      var chunks = IntStream.range(0, boundaries.length - 1)
+          .parallel()
+          .mapToObj(i -> parseChunk(boundaries[i], boundaries[i + 1]))
+          .toList();
+      if (!chunks.contains(null)) {
+        return merge(chunks);
+      }
+      for (var name : slots.keySet()) {
+        frameDescriptor.removeFrameSlot(name);
+      }
+      slots.clear();
+    }
+    var parser = new ToylPrattParser(frameDescriptor, source);
+    try {
+      return parser.parseProgram();
+    } finally {
+      chunkCount = 1;
+      tokenCount = parser.getTokenCount();
+    }
+  }
+
+  private Chunk parseChunk(int from, int to) {
+    try {
+      var factory = new ToylRecordingNodeFactory(frameDescriptor, this::slot);
+      var parser = new ToylPrattParser(source, factory, from, to);
+      var start = parser.tokenStart();
+      var statements = parser.parseStatements();
+      return new Chunk(statements, factory.takeVariables(), start, parser.previousEnd(), parser.getTokenCount());
+    } catch (ToylParseError e) {
+      return null;
+    }
+  }
+
+  private ToylNode merge(List<Chunk> chunks) {
+    var checker = new ToylNodeFactory(new FrameDescriptor());
+    var statements = new ArrayList<ToylNode>();
+    for (var chunk : chunks) {
+      ToylRecordingNodeFactory.check(checker, chunk.variables());
+      statements.addAll(chunk.statements());
+    }
+    chunkCount = chunks.size();
+    // every chunk ends with an EOF token, the program only has one
+    tokenCount = chunks.stream().mapToInt(Chunk::tokens).sum() - chunks.size() + 1;
+    var start = chunks.get(0).start();
+    var program = new ToylNodeFactory(frameDescriptor).createProgram(statements);
+    program.setSourceSection(start, chunks.get(chunks.size() - 1).end() - start);
+    return program;
+  }
+
+  private FrameSlot slot(String name) {
+    return slots.computeIfAbsent(name, key -> {
+      synchronized (frameDescriptor) {
+        return frameDescriptor.addFrameSlot(key);
+      }
+    });
+  }
+
+  /**
+   * @return the chunk boundaries, from 0 to the length of the source, for at most maxChunks chunks
+   */
+  private int[] split(CharSequence chars, int maxChunks) {
+    var length = chars.length();
+    var chunks = Math.min(maxChunks, length / minChunkLength);
+    var boundaries = new ArrayList<Integer>();
+    boundaries.add(0);
+    for (int i = 1; i < chunks; i++) {
+      var target = (int) ((long) length * i / chunks);
+      var boundary = findStatementStart(chars, Math.max(target, boundaries.get(boundaries.size() - 1) + 1));
+      if (boundary < 0) {
+        break;
+      }
+      if (boundary > boundaries.get(boundaries.size() - 1)) {
+        boundaries.add(boundary);
+      }
+    }
+    boundaries.add(length);
+    return boundaries.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * @return the index of the first token at or after {@code from} that always starts a statement, or -1
+   */
+  private static int findStatementStart(CharSequence chars, int from) {
+    var length = chars.length();
+    var position = from;
+    // names are runs of letters, start at the beginning of one
+    while (position < length && position > 0 && isLetter(chars.charAt(position - 1))) {
+      position++;
+    }
+    while (position < length) {
+      if (!isLetter(chars.charAt(position))) {
+        position++;
+        continue;
+      }
+      var end = position;
+      while (end < length && isLetter(chars.charAt(end))) {
+        end++;
+      }
+      if (isVar(chars, position, end)) {
+        return position;
+      }
+      var next = skipWhitespace(chars, end);
+      if (next < length && chars.charAt(next) == '=' && !followsVar(chars, position)) {
+        return position;
+      }
+      position = end;
+    }
+    return -1;
+  }
+
+  private static boolean followsVar(CharSequence chars, int position) {
+    var end = position;
+    while (end > 0 && isWhitespace(chars.charAt(end - 1))) {
+      end--;
+    }
+    var start = end;
+    while (start > 0 && isLetter(chars.charAt(start - 1))) {
+      start--;
+    }
+    return isVar(chars, start, end);
+  }
+
+  private static boolean isVar(CharSequence chars, int start, int end) {
+    return end - start == 3
+        && chars.charAt(start) == 'v' && chars.charAt(start + 1) == 'a' && chars.charAt(start + 2) == 'r';
+  }
+
+  private static int skipWhitespace(CharSequence chars, int position) {
+    while (position < chars.length() && isWhitespace(chars.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+}
@@ -0,0 +1,194 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import toyl.ast.ToylExpressionNode;
+import toyl.ast.ToylNode;
+import toyl.errors.ToylSemanticError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the Toyl AST while ToylParser parses, as a parse listener on a parser that does not build a parse tree
+ * ({@code setBuildParseTree(false)}). Rule contexts exit in post order, so the nodes of an expression's operands
+ * are on top of the node stack when the expression exits. Every rule context is garbage as soon as it exits, and
+ * the AST is the only tree that is ever complete.
+ * <p>
+ * Like the parse tree walk it replaces, a syntax error anywhere wins over a semantic error: once a semantic
+ * check fails no more nodes are built, parsing continues, and {@link #getProgram()} reports the semantic error.
+ * When parsing is abandoned on a syntax error the rules still exit while they unwind, {@link #getErrorListener()}
+ * tells the listener to ignore them.
+ */
+public final class ToylParseListener implements ParseTreeListener {
+
+  private final FrameDescriptor frameDescriptor;
+  private final ToylParser parser;
+  private final CharSequence chars;
+  private final ToylNameTable names = new ToylNameTable();
+  private ToylNodeFactory factory;
+  private final List<ToylNode> stack = new ArrayList<>();
+  private final List<String> declared = new ArrayList<>();
+  private String name;
+  private FrameSlot slot;
+  private Token lastStatementStop;
+  private ToylNode program;
+  private ToylSemanticError semanticError;
+  private long parseTreeNodes;
+  private boolean abandoned;
+
+  private final ANTLRErrorListener errorListener = new BaseErrorListener() {
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+                            String msg, RecognitionException e) {
+      abandoned = true;
+    }
+  };
+
+  /**
+   * @param chars the characters the parser's tokens are in, names and literals are read from them in place
+   *              instead of through {@code Token.getText()}, which copies every token into a new String
+   */
+  public ToylParseListener(FrameDescriptor frameDescriptor, ToylParser parser, CharSequence chars) {
+    this.frameDescriptor = frameDescriptor;
+    this.parser = parser;
+    this.chars = chars;
+    this.factory = new ToylNodeFactory(frameDescriptor);
+  }
+
+  /**
+   * Forgets everything built so far, including the variables declared in the frame descriptor, before the
+   * parser parses the same input again.
+   */
+  public void reset() {
+    for (var variable : declared) {
+      frameDescriptor.removeFrameSlot(variable);
+    }
+    declared.clear();
+    stack.clear();
+    factory = new ToylNodeFactory(frameDescriptor);
+    name = null;
+    slot = null;
+    lastStatementStop = null;
+    program = null;
+    semanticError = null;
+    parseTreeNodes = 0;
+    abandoned = false;
+  }
+
+  /**
+   * @return an error listener to add to the lexer and the parser ahead of the one that throws the syntax error
+   */
+  public ANTLRErrorListener getErrorListener() {
+    return errorListener;
+  }
+
+  /**
+   * @return the program, once the parser returned from {@code program()}
+   */
+  public ToylNode getProgram() {
+    if (semanticError != null) {
+      throw semanticError;
+    }
+    return program;
+  }
+
+  /**
+   * @return the number of rule contexts and tokens the parser went through, the size the parse tree would have had
+   */
+  public long getParseTreeNodes() {
+    return parseTreeNodes;
+  }
+
+  @Override
+  public void enterEveryRule(ParserRuleContext ctx) {
+    parseTreeNodes++;
+  }
+
+  @Override
+  public void visitTerminal(TerminalNode node) {
+    parseTreeNodes++;
+    if (node.getSymbol().getType() != ToylParser.NAME || semanticError != null || abandoned) {
+      return;
+    }
+    // variables are resolved when their name is matched, before the expression after it is built
+    var context = parser.getContext();
+    try {
+      if (context instanceof ToylParser.VarDeclContext) {
+        name = name(node.getSymbol());
+        slot = factory.declareVariable(name);
+        declared.add(name);
+      } else if (context instanceof ToylParser.AssignmentContext) {
+        name = name(node.getSymbol());
+        slot = factory.findAssignedVariable(name);
+      }
+    } catch (ToylSemanticError e) {
+      semanticError = e;
+    }
+  }
+
+  @Override
+  public void visitErrorNode(ErrorNode node) {
+  }
+
+  @Override
+  public void exitEveryRule(ParserRuleContext ctx) {
+    // the stop token of left recursive contexts is only set after they exit, it is the last token matched
+    var stop = parser.getInputStream().LT(-1);
+    if (ctx instanceof ToylParser.StatementContext) {
+      lastStatementStop = stop;
+    }
+    if (semanticError != null || abandoned || ctx.exception != null) {
+      return;
+    }
+    try {
+      if (ctx instanceof ToylParser.LiteralNumberContext) {
+        var literal = ctx.getStart();
+        push(factory.createNumberLiteral(chars, literal.getStartIndex(), literal.getStopIndex() + 1), ctx, stop);
+      } else if (ctx instanceof ToylParser.VarRefExprContext) {
+        push(factory.createVarRef(name(ctx.getStart())), ctx, stop);
+      } else if (ctx instanceof ToylParser.ArithmeticExpressionContext arithmetic) {
+        var right = (ToylExpressionNode) pop();
+        var left = (ToylExpressionNode) pop();
+        var operator = chars.charAt(arithmetic.binaryOp.getStartIndex());
+        push(factory.createBinary(operator, left, right), ctx, stop);
+      } else if (ctx instanceof ToylParser.UnaryMinusContext) {
+        push(factory.createUnaryMinus((ToylExpressionNode) pop()), ctx, stop);
+      } else if (ctx instanceof ToylParser.VarDeclContext) {
+        push(factory.createVarDecl(name, slot, pop()), ctx, stop);
+      } else if (ctx instanceof ToylParser.AssignmentContext) {
+        push(factory.createAssignment(name, slot, pop()), ctx, stop);
+      } else if (ctx instanceof ToylParser.ProgramContext) {
+        // the stack holds the statements, the program ends with the last one, not with the EOF token
+        program = factory.createProgram(List.copyOf(stack));
+        program.setSourceSection(ctx.getStart().getStartIndex(),
+            lastStatementStop.getStopIndex() - ctx.getStart().getStartIndex() + 1);
+        stack.clear();
+      }
+    } catch (ToylSemanticError e) {
+      semanticError = e;
+    }
+  }
+
+  private String name(Token token) {
+    return names.intern(chars, token.getStartIndex(), token.getStopIndex() + 1);
+  }
+
+  private void push(ToylNode node, ParserRuleContext ctx, Token stop) {
+    node.setSourceSection(ctx.getStart().getStartIndex(), stop.getStopIndex() - ctx.getStart().getStartIndex() + 1);
+    stack.add(node);
+  }
+
+  private ToylNode pop() {
+    return stack.remove(stack.size() - 1);
+  }
+}
@@ -0,0 +1,107 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import toyl.ToylLanguage;
+import toyl.runtime.ToylMemberNames;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Counters and timings for the phases of ToylLanguage.parse, summed over all parses in a context. Enabled
+ * with {@code --toyl.ParseStatistics}, the host reads them as the {@code parseStatistics} member of
+ * {@code context.getBindings("toyl")}. Every parse is also logged at level FINE to the {@code toyl.parse} logger.
+ * <ul>
+ *   <li>parses: the number of sources parsed</li>
+ *   <li>tokens: tokens produced by the lexer</li>
+ *   <li>parseTreeNodes: ANTLR rule contexts and tokens the parser went through, the size of the parse tree it
+ *   no longer builds</li>
+ *   <li>astNodes: Toyl nodes created</li>
+ *   <li>lexNanos: time spent lexing</li>
+ *   <li>parseNanos: time spent parsing and building the AST while parsing, including predictionNanos</li>
+ *   <li>predictionNanos: the part of parseNanos spent in adaptive prediction</li>
+ * </ul>
+ * The pratt parser lexes, parses and builds the AST in one pass without ANTLR, all of its time is counted as
+ * parseNanos. So is the wall clock time of the parallel parser. The phases a front end does not have are
+ * {@link #NOT_MEASURED} and left out of the display and the log.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class ToylParseStatistics implements TruffleObject {
+
+  /** the value of a phase the front end does not have or does not time on its own */
+  public static final long NOT_MEASURED = -1;
+
+  private static final TruffleLogger LOGGER = TruffleLogger.getLogger(ToylLanguage.ID, "parse");
+
+  private static final String[] MEMBERS = {
+      "parses", "tokens", "parseTreeNodes", "astNodes", "lexNanos", "parseNanos", "predictionNanos"
+  };
+
+  private final long[] values = new long[MEMBERS.length];
+
+  @TruffleBoundary
+  public synchronized void record(String sourceName, long tokens, long parseTreeNodes, long astNodes,
+                                  long lexNanos, long parseNanos, long predictionNanos) {
+    long[] parse = {1, tokens, parseTreeNodes, astNodes, lexNanos, parseNanos, predictionNanos};
+    for (int i = 0; i < values.length; i++) {
+      values[i] = values[i] == NOT_MEASURED || parse[i] == NOT_MEASURED ? NOT_MEASURED : values[i] + parse[i];
+    }
+    LOGGER.fine(() -> describe(new StringJoiner(", ", "parsed " + sourceName + ": ", ""), parse, 1));
+  }
+
+  @TruffleBoundary
+  public synchronized long get(String member) {
+    var index = Arrays.asList(MEMBERS).indexOf(member);
+    if (index < 0) {
+      throw new IllegalArgumentException(member);
+    }
+    return values[index];
+  }
+
+  @ExportMessage
+  boolean hasMembers() {
+    return true;
+  }
+
+  @ExportMessage
+  Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+    return new ToylMemberNames(MEMBERS);
+  }
+
+  @ExportMessage
+  @TruffleBoundary
+  boolean isMemberReadable(String member) {
+    return Arrays.asList(MEMBERS).contains(member);
+  }
+
+  @ExportMessage
+  Object readMember(String member) throws UnknownIdentifierException {
+    if (!isMemberReadable(member)) {
+      throw UnknownIdentifierException.create(member);
+    }
+    return get(member);
+  }
+
+  @ExportMessage
+  @TruffleBoundary
+  Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+    synchronized (this) {
+      return describe(new StringJoiner(", ", "ParseStatistics{", "}"), values, 0);
+    }
+  }
+
+  private static String describe(StringJoiner description, long[] counts, int from) {
+    for (int i = from; i < MEMBERS.length; i++) {
+      if (counts[i] != NOT_MEASURED) {
+        description.add(MEMBERS[i] + "=" + counts[i]);
+      }
+    }
+    return description.toString();
+  }
+}
@@ -0,0 +1,336 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.source.Source;
+import toyl.ast.ToylExpressionNode;
+import toyl.ast.ToylNode;
+import toyl.errors.ToylParseError;
+import toyl.errors.ToylSemanticError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static toyl.parser.ToylScanner.*;
+
+/**
+ * A hand-written front end for Toyl.g4 that builds the AST in a single pass over the source, without the ANTLR
+ * runtime, a token buffer or a parse tree. Selected with {@code --toyl.Parser=pratt}.
+ * <p>
+ * Expressions are parsed by precedence climbing with the precedences ANTLR derives from the order of the
+ * {@code expr} alternatives: {@code * /} bind tighter than {@code + -}, both are left associative, and the
+ * operand of a unary minus extends over all binary operators, so {@code -1 + 2} is {@code -(1 + 2)}.
+ * <p>
+ * The result is the same AST the ANTLR front end builds, with the same source sections. Syntax errors are
+ * reported with ANTLR's messages for the first error, and like the ANTLR front end, which parses everything
+ * before building the AST, a syntax error anywhere wins over a semantic error: once a semantic check fails the
+ * rest of the program is only checked for syntax and the semantic error is reported at the end.
+ */
+public final class ToylPrattParser {
+
+  private static final int MULTIPLICATIVE = 5;
+  private static final int ADDITIVE = 4;
+  private static final int UNARY_OPERAND = 2;
+
+  private static final String EXPRESSION_START = "{'-', '(', LITERAL_NUMBER, NAME}";
+  private static final String FIRST_STATEMENT = "{'var', '-', '(', LITERAL_NUMBER, NAME}";
+  private static final String NEXT_STATEMENT = "{<EOF>, 'var', '-', '(', LITERAL_NUMBER, NAME}";
+  private static final String AFTER_PARENTHESIZED = "{'*', '/', '+', '-', ')'}";
+
+  private final Source source;
+  private final ToylScanner scanner;
+  private final ToylNodeFactory factory;
+  private ToylSemanticError semanticError;
+  private boolean buildNodes = true;
+  private int openParentheses;
+
+  public ToylPrattParser(FrameDescriptor frameDescriptor, Source source) {
+    this(source, new ToylNodeFactory(frameDescriptor), 0, source.getLength());
+  }
+
+  /**
+   * Parses the statements between {@code from} and {@code to} only, building the nodes with the given factory.
+   */
+  ToylPrattParser(Source source, ToylNodeFactory factory, int from, int to) {
+    this.source = source;
+    this.scanner = new ToylScanner(source, from, to);
+    this.factory = factory;
+  }
+
+  /**
+   * @return the number of tokens scanned so far, all tokens including EOF after a successful parse
+   */
+  public int getTokenCount() {
+    return scanner.tokens();
+  }
+
+  public ToylNode parseProgram() {
+    var start = scanner.start();
+    return withSource(factory.createProgram(parseStatements()), start);
+  }
+
+  /**
+   * @return the index of the first character of the current token, before parsing the first one of the program
+   */
+  int tokenStart() {
+    return scanner.start();
+  }
+
+  /**
+   * @return the index after the last character of the last token parsed
+   */
+  int previousEnd() {
+    return scanner.previousEnd();
+  }
+
+  List<ToylNode> parseStatements() {
+    var statements = new ArrayList<ToylNode>();
+    do {
+      expectStatement(statements.isEmpty());
+      statements.add(parseStatement());
+    } while (scanner.type() != EOF);
+    if (semanticError != null) {
+      throw semanticError;
+    }
+    return statements;
+  }
+
+  /**
+   * Parses the statement at the current token, for front ends that need to know where every statement starts and
+   * ends. The first statement of the program must not be missing, any later one ends the range when it is.
+   *
+   * @return the statement, null at the end of the range
+   */
+  ToylNode parseNextStatement(boolean first) {
+    if (!first && scanner.type() == EOF) {
+      return null;
+    }
+    expectStatement(first);
+    var statement = parseStatement();
+    if (semanticError != null) {
+      throw semanticError;
+    }
+    return statement;
+  }
+
+  /**
+   * Checks the syntax and the variables of the program like {@link #parseProgram()} does, declaring the variables
+   * in the frame descriptor, but builds no nodes.
+   *
+   * @return the start and the end index of every statement, two per statement
+   */
+  int[] checkStatements() {
+    buildNodes = false;
+    var bounds = new int[64];
+    var count = 0;
+    do {
+      expectStatement(count == 0);
+      if (count == bounds.length) {
+        bounds = Arrays.copyOf(bounds, count * 2);
+      }
+      bounds[count++] = scanner.start();
+      parseStatement();
+      bounds[count++] = scanner.previousEnd();
+    } while (scanner.type() != EOF);
+    if (semanticError != null) {
+      throw semanticError;
+    }
+    return Arrays.copyOf(bounds, count);
+  }
+
+  private void expectStatement(boolean first) {
+    if (!isStatementStart(scanner.type())) {
+      if (first && !isStatementStart(scanner.peek())) {
+        throw mismatched(FIRST_STATEMENT);
+      }
+      throw extraneous(first ? FIRST_STATEMENT : NEXT_STATEMENT);
+    }
+  }
+
+  private ToylNode parseStatement() {
+    var start = scanner.start();
+    if (scanner.type() == VAR) {
+      scanner.advance();
+      expect(NAME, "NAME", ASSIGN);
+      var name = scanner.name();
+      scanner.advance();
+      expect(ASSIGN, "'='", -1);
+      scanner.advance();
+      var slot = declareVariable(name);
+      var value = parseExpression(0);
+      return building() ? withSource(factory.createVarDecl(name, slot, value), start) : null;
+    }
+    if (scanner.type() == NAME && scanner.peek() == ASSIGN) {
+      var name = scanner.name();
+      scanner.advance();
+      scanner.advance();
+      var slot = findAssignedVariable(name);
+      var value = parseExpression(0);
+      return building() ? withSource(factory.createAssignment(name, slot, value), start) : null;
+    }
+    return parseExpression(0);
+  }
+
+  private ToylExpressionNode parseExpression(int precedence) {
+    var start = scanner.start();
+    var left = parseOperand();
+    while (true) {
+      var type = scanner.type();
+      var operatorPrecedence = type == STAR || type == SLASH ? MULTIPLICATIVE
+          : type == PLUS || type == MINUS ? ADDITIVE
+          : -1;
+      if (operatorPrecedence < precedence) {
+        return left;
+      }
+      var operator = scanner.firstChar();
+      scanner.advance();
+      var right = parseExpression(operatorPrecedence + 1);
+      left = building() ? withSource(factory.createBinary(operator, left, right), start) : null;
+    }
+  }
+
+  private ToylExpressionNode parseOperand() {
+    var start = scanner.start();
+    switch (scanner.type()) {
+      case LITERAL_NUMBER -> {
+        var literal = building()
+            ? withSource(factory.createNumberLiteral(scanner.chars(), start, scanner.end()), start, scanner.end())
+            : null;
+        scanner.advance();
+        return literal;
+      }
+      case NAME -> {
+        var reference = createVarRef(scanner.name(), start, scanner.end());
+        scanner.advance();
+        return reference;
+      }
+      case LPAREN -> {
+        scanner.advance();
+        openParentheses++;
+        var expression = parseExpression(0);
+        expectClosingParenthesis();
+        openParentheses--;
+        scanner.advance();
+        // the parentheses are part of the enclosing expression's source section, not of this one
+        return expression;
+      }
+      case MINUS -> {
+        scanner.advance();
+        var operand = parseExpression(UNARY_OPERAND);
+        return building() ? withSource(factory.createUnaryMinus(operand), start) : null;
+      }
+      default -> {
+        throw isExpressionStart(scanner.peek()) ? extraneous(EXPRESSION_START) : mismatched(EXPRESSION_START);
+      }
+    }
+  }
+
+  /**
+   * Reports a missing token the way ANTLR's DefaultErrorStrategy does: a single extra token before the expected
+   * one is extraneous, a token that could follow the expected one means it is missing.
+   */
+  private void expect(int type, String display, int follow) {
+    if (scanner.type() == type) {
+      return;
+    }
+    if (scanner.peek() == type) {
+      throw extraneous(display);
+    }
+    var missing = follow >= 0 ? scanner.type() == follow : isExpressionStart(scanner.type());
+    throw missing ? missing(display) : mismatched(display);
+  }
+
+  private void expectClosingParenthesis() {
+    var type = scanner.type();
+    if (type == RPAREN) {
+      return;
+    }
+    if (scanner.peek() == RPAREN) {
+      throw extraneous("')'");
+    }
+    var follows = type == STAR || type == SLASH || type == PLUS || type == MINUS
+        || (openParentheses > 1 ? type == RPAREN : type == EOF || isStatementStart(type));
+    throw follows ? missing("')'") : mismatched(AFTER_PARENTHESIZED);
+  }
+
+  private static boolean isExpressionStart(int type) {
+    return type == MINUS || type == LPAREN || type == LITERAL_NUMBER || type == NAME;
+  }
+
+  private static boolean isStatementStart(int type) {
+    return type == VAR || isExpressionStart(type);
+  }
+
+  private ToylParseError mismatched(String expected) {
+    return error("mismatched input %s expecting %s".formatted(scanner.display(), expected));
+  }
+
+  private ToylParseError extraneous(String expected) {
+    return error("extraneous input %s expecting %s".formatted(scanner.display(), expected));
+  }
+
+  private ToylParseError missing(String expected) {
+    return error("missing %s at %s".formatted(expected, scanner.display()));
+  }
+
+  private ToylParseError error(String message) {
+    return new ToylParseError(source, scanner.line(), scanner.column(), message);
+  }
+
+  private boolean checking() {
+    return semanticError == null;
+  }
+
+  private boolean building() {
+    return buildNodes && checking();
+  }
+
+  private FrameSlot declareVariable(String name) {
+    if (checking()) {
+      try {
+        return factory.declareVariable(name);
+      } catch (ToylSemanticError e) {
+        semanticError = e;
+      }
+    }
+    return null;
+  }
+
+  private FrameSlot findAssignedVariable(String name) {
+    if (checking()) {
+      try {
+        return factory.findAssignedVariable(name);
+      } catch (ToylSemanticError e) {
+        semanticError = e;
+      }
+    }
+    return null;
+  }
+
+  private ToylExpressionNode createVarRef(String name, int start, int end) {
+    if (checking()) {
+      try {
+        if (buildNodes) {
+          return withSource(factory.createVarRef(name), start, end);
+        }
+        factory.findReferencedVariable(name);
+      } catch (ToylSemanticError e) {
+        semanticError = e;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gives the node the source section from start up to the last token consumed.
+   */
+  private <T extends ToylNode> T withSource(T node, int start) {
+    return withSource(node, start, scanner.previousEnd());
+  }
+
+  private static <T extends ToylNode> T withSource(T node, int start, int end) {
+    node.setSourceSection(start, end - start);
+    return node;
+  }
+}
@@ -0,0 +1,72 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builds the nodes of statements whose variables cannot be checked yet, because the declarations they depend on
+ * are parsed elsewhere. It takes the frame slots from the given function and records every declaration, reference
+ * and assignment instead, for {@link #check} to replay in source order once they are all known.
+ */
+final class ToylRecordingNodeFactory extends ToylNodeFactory {
+
+  static final int DECLARE = 0;
+  static final int REFERENCE = 1;
+  static final int ASSIGN = 2;
+
+  record Variable(int use, String name) {
+  }
+
+  private final Function<String, FrameSlot> slots;
+  private List<Variable> variables = new ArrayList<>();
+
+  ToylRecordingNodeFactory(FrameDescriptor frameDescriptor, Function<String, FrameSlot> slots) {
+    super(frameDescriptor);
+    this.slots = slots;
+  }
+
+  /**
+   * @return the variables recorded since the last call
+   */
+  List<Variable> takeVariables() {
+    var taken = variables;
+    variables = new ArrayList<>();
+    return taken;
+  }
+
+  @Override
+  public FrameSlot declareVariable(String name) {
+    variables.add(new Variable(DECLARE, name));
+    return slots.apply(name);
+  }
+
+  @Override
+  public FrameSlot findReferencedVariable(String name) {
+    variables.add(new Variable(REFERENCE, name));
+    return slots.apply(name);
+  }
+
+  @Override
+  public FrameSlot findAssignedVariable(String name) {
+    variables.add(new Variable(ASSIGN, name));
+    return slots.apply(name);
+  }
+
+  /**
+   * Checks recorded variables with a factory that declares them in a scratch frame descriptor, which throws the
+   * same ToylSemanticError a sequential parse throws when they are checked in source order.
+   */
+  static void check(ToylNodeFactory checker, List<Variable> variables) {
+    for (var variable : variables) {
+      switch (variable.use()) {
+        case DECLARE -> checker.declareVariable(variable.name());
+        case REFERENCE -> checker.findReferencedVariable(variable.name());
+        case ASSIGN -> checker.findAssignedVariable(variable.name());
+      }
+    }
+  }
+}
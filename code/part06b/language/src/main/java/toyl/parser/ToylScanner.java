@@ -0,0 +1,263 @@
+package toyl.parser;
+
+import com.oracle.truffle.api.source.Source;
+import toyl.errors.ToylParseError;
+
+/**
+ * A hand-written lexer for the tokens of Toyl.g4, reading the characters of the source in place. It keeps the
+ * current token and, on demand, the one after it, which is all the lookahead {@link ToylPrattParser} needs.
+ * Lexical errors are reported like ToylLexer reports them through {@link ToylErrorListener}.
+ */
+final class ToylScanner {
+
+  static final int EOF = 0;
+  static final int VAR = 1;
+  static final int ASSIGN = 2;
+  static final int STAR = 3;
+  static final int SLASH = 4;
+  static final int PLUS = 5;
+  static final int MINUS = 6;
+  static final int LPAREN = 7;
+  static final int RPAREN = 8;
+  static final int LITERAL_NUMBER = 9;
+  static final int NAME = 10;
+
+  private final Source source;
+  private final CharSequence chars;
+  private final int from;
+  private final int length;
+
+  /** the next character to scan and the line it is on */
+  private int position;
+  private int line = 1;
+  private int lineStart;
+
+  private int type;
+  private int start;
+  private int end;
+  private int tokenLine;
+  private int tokenColumn;
+  private int previousEnd;
+
+  private boolean peeked;
+  private int peekType;
+  private int peekStart;
+  private int peekEnd;
+  private int peekLine;
+  private int peekColumn;
+
+  private int tokens;
+  private final ToylNameTable names = new ToylNameTable();
+
+  ToylScanner(Source source) {
+    this(source, 0, source.getLength());
+  }
+
+  /**
+   * Scans the characters from {@code from} to {@code to} only. Lines are counted from the start of the range, and
+   * only translated to lines of the source when an error asks for them.
+   */
+  ToylScanner(Source source, int from, int to) {
+    this.source = source;
+    this.chars = source.getCharacters();
+    this.from = from;
+    this.length = to;
+    this.position = from;
+    this.lineStart = from;
+    scan();
+    tokens++;
+  }
+
+  int type() {
+    return type;
+  }
+
+  /**
+   * @return the index of the first character of the current token
+   */
+  int start() {
+    return start;
+  }
+
+  /**
+   * @return the index after the last character of the current token
+   */
+  int end() {
+    return end;
+  }
+
+  /**
+   * @return the index after the last character of the token before the current one
+   */
+  int previousEnd() {
+    return previousEnd;
+  }
+
+  int line() {
+    return from == 0 ? tokenLine : source.getLineNumber(from) + tokenLine - 1;
+  }
+
+  int column() {
+    return from == 0 || tokenLine > 1
+        ? tokenColumn
+        : tokenColumn + from - source.getLineStartOffset(source.getLineNumber(from));
+  }
+
+  String text() {
+    return chars.subSequence(start, end).toString();
+  }
+
+  /**
+   * @return the current NAME token, the same String for every occurrence of the name
+   */
+  String name() {
+    return names.intern(chars, start, end);
+  }
+
+  /**
+   * @return the characters of the source, for reading the current token between start and end in place
+   */
+  CharSequence chars() {
+    return chars;
+  }
+
+  char firstChar() {
+    return chars.charAt(start);
+  }
+
+  /**
+   * @return the number of tokens scanned so far, including EOF once it is reached
+   */
+  int tokens() {
+    return tokens;
+  }
+
+  /**
+   * @return the type of the token after the current one
+   */
+  int peek() {
+    if (!peeked && type != EOF) {
+      var current = type;
+      var currentStart = start;
+      var currentEnd = end;
+      var currentLine = tokenLine;
+      var currentColumn = tokenColumn;
+      scan();
+      peekType = type;
+      peekStart = start;
+      peekEnd = end;
+      peekLine = tokenLine;
+      peekColumn = tokenColumn;
+      peeked = true;
+      type = current;
+      start = currentStart;
+      end = currentEnd;
+      tokenLine = currentLine;
+      tokenColumn = currentColumn;
+    }
+    return peeked ? peekType : EOF;
+  }
+
+  void advance() {
+    previousEnd = end;
+    if (type == EOF) {
+      return;
+    }
+    if (peeked) {
+      type = peekType;
+      start = peekStart;
+      end = peekEnd;
+      tokenLine = peekLine;
+      tokenColumn = peekColumn;
+      peeked = false;
+    } else {
+      scan();
+    }
+    tokens++;
+  }
+
+  private void scan() {
+    while (position < length) {
+      var c = chars.charAt(position);
+      if (c == '\n') {
+        position++;
+        line++;
+        lineStart = position;
+      } else if (c == ' ' || c == '\t' || c == '\r') {
+        position++;
+      } else {
+        break;
+      }
+    }
+    start = position;
+    tokenLine = line;
+    tokenColumn = position - lineStart;
+    if (position == length) {
+      type = EOF;
+      end = position;
+      return;
+    }
+    var c = chars.charAt(position++);
+    switch (c) {
+      case '=' -> type = ASSIGN;
+      case '*' -> type = STAR;
+      case '/' -> type = SLASH;
+      case '+' -> type = PLUS;
+      case '-' -> type = MINUS;
+      case '(' -> type = LPAREN;
+      case ')' -> type = RPAREN;
+      default -> {
+        if (isDigit(c)) {
+          scanNumber();
+        } else if (isLetter(c)) {
+          scanName();
+        } else {
+          throw new ToylParseError(source, line(), column(),
+              "token recognition error at: '%s'".formatted(errorDisplay(String.valueOf(c))));
+        }
+      }
+    }
+    end = position;
+  }
+
+  private void scanNumber() {
+    while (position < length && isDigit(chars.charAt(position))) {
+      position++;
+    }
+    if (position + 1 < length && chars.charAt(position) == '.' && isDigit(chars.charAt(position + 1))) {
+      position += 2;
+      while (position < length && isDigit(chars.charAt(position))) {
+        position++;
+      }
+    }
+    type = LITERAL_NUMBER;
+  }
+
+  private void scanName() {
+    while (position < length && isLetter(chars.charAt(position))) {
+      position++;
+    }
+    var isVar = position - start == 3
+        && chars.charAt(start) == 'v' && chars.charAt(start + 1) == 'a' && chars.charAt(start + 2) == 'r';
+    type = isVar ? VAR : NAME;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /**
+   * @return the current token the way ANTLR shows offending tokens in its error messages
+   */
+  String display() {
+    return type == EOF ? "'<EOF>'" : "'" + errorDisplay(text()) + "'";
+  }
+
+  private static String errorDisplay(String text) {
+    return text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+  }
+}
@@ -0,0 +1,72 @@
+package toyl.runtime;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import toyl.ToylContext;
+import toyl.ToylLanguage;
+
+/**
+ * The top scope of a Toyl context, what the host sees through {@code context.getBindings("toyl")}. Toyl
+ * programs have no globals, the only members are the diagnostics enabled through language options.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class ToylBindings implements TruffleObject {
+
+  static final String PARSE_STATISTICS = "parseStatistics";
+
+  private final ToylContext context;
+
+  public ToylBindings(ToylContext context) {
+    this.context = context;
+  }
+
+  @ExportMessage
+  boolean isScope() {
+    return true;
+  }
+
+  @ExportMessage
+  boolean hasLanguage() {
+    return true;
+  }
+
+  @ExportMessage
+  Class<? extends TruffleLanguage<?>> getLanguage() {
+    return ToylLanguage.class;
+  }
+
+  @ExportMessage
+  Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffects) {
+    return "global";
+  }
+
+  @ExportMessage
+  boolean hasMembers() {
+    return true;
+  }
+
+  @ExportMessage
+  @TruffleBoundary
+  Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+    return context.getParseStatistics() != null ? new ToylMemberNames(PARSE_STATISTICS) : new ToylMemberNames();
+  }
+
+  @ExportMessage
+  boolean isMemberReadable(String member) {
+    return PARSE_STATISTICS.equals(member) && context.getParseStatistics() != null;
+  }
+
+  @ExportMessage
+  @TruffleBoundary
+  Object readMember(String member) throws UnknownIdentifierException {
+    if (!isMemberReadable(member)) {
+      throw UnknownIdentifierException.create(member);
+    }
+    return context.getParseStatistics();
+  }
+}
@@ -0,0 +1,263 @@
+package toyl.tracing;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Option;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import com.oracle.truffle.api.nodes.Node;
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionStability;
+import toyl.ToylLanguage;
+import toyl.ast.ToylAddNode;
+import toyl.ast.ToylDivNode;
+import toyl.ast.ToylDivPowerOfTwoNode;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylMulPowerOfTwoNode;
+import toyl.ast.ToylNegNode;
+import toyl.ast.ToylSubNode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Attributes the heap allocated while executing Toyl statements and expressions to their source locations
+ * and node types, so that the formulas churning BigDecimals can be found. Enabled with
+ * {@code --toyl-allocations}, the report is written to the error stream or {@code --toyl-allocations.Output}
+ * when the engine is closed.
+ * <ul>
+ *   <li>bytes: bytes allocated by the thread while the node executed, including its children</li>
+ *   <li>selfBytes: bytes minus the bytes of the instrumented children</li>
+ *   <li>objects: BigDecimals created by the node itself, its result and the implicit casts of long operands</li>
+ * </ul>
+ * Bytes come from the JVM's per thread allocation counter and include the allocations of the interpreter and
+ * of the profiler itself, so they are meant to compare formulas and runs rather than as exact sizes.
+ */
+@TruffleInstrument.Registration(id = ToylAllocationProfiler.ID, name = "Toyl Allocation Profiler",
+    services = ToylAllocationProfiler.class)
+public final class ToylAllocationProfiler extends TruffleInstrument {
+
+  public static final String ID = "toyl-allocations";
+
+  @Option(name = "", help = "Attribute allocated bytes and BigDecimals to Toyl source locations and report them on exit.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  static final OptionKey<Boolean> Enabled = new OptionKey<>(false);
+
+  @Option(help = "Write the allocation report to this file instead of the error stream.",
+      category = OptionCategory.EXPERT, stability = OptionStability.STABLE)
+  static final OptionKey<String> Output = new OptionKey<>("");
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  public static final class Entry {
+    private final String location;
+    private final String node;
+    private long executions;
+    private long bytes;
+    private long selfBytes;
+    private long objects;
+
+    private Entry(String location, String node) {
+      this.location = location;
+      this.node = node;
+    }
+
+    public String getLocation() {
+      return location;
+    }
+
+    public String getNode() {
+      return node;
+    }
+
+    public synchronized long getExecutions() {
+      return executions;
+    }
+
+    public synchronized long getBytes() {
+      return bytes;
+    }
+
+    public synchronized long getSelfBytes() {
+      return selfBytes;
+    }
+
+    public synchronized long getObjects() {
+      return objects;
+    }
+
+    private synchronized void record(long bytes, long selfBytes, long objects) {
+      this.executions++;
+      this.bytes += bytes;
+      this.selfBytes += selfBytes;
+      this.objects += objects;
+    }
+  }
+
+  /**
+   * The instrumented nodes executing on a thread, innermost last.
+   */
+  private static final class Executions {
+    private long[] startBytes = new long[16];
+    private long[] childBytes = new long[16];
+    private int[] longInputs = new int[16];
+    private int depth = -1;
+
+    void enter(long bytes) {
+      if (++depth == startBytes.length) {
+        startBytes = Arrays.copyOf(startBytes, depth * 2);
+        childBytes = Arrays.copyOf(childBytes, depth * 2);
+        longInputs = Arrays.copyOf(longInputs, depth * 2);
+      }
+      startBytes[depth] = bytes;
+      childBytes[depth] = 0;
+      longInputs[depth] = 0;
+    }
+  }
+
+  private final List<Entry> entries = new ArrayList<>();
+  private final ThreadLocal<Executions> executions = ThreadLocal.withInitial(Executions::new);
+
+  @Override
+  protected void onCreate(Env env) {
+    env.registerService(this);
+    if (!env.getOptions().get(Enabled)) {
+      return;
+    }
+    if (THREADS.isThreadAllocatedMemorySupported()) {
+      THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+    var filter = SourceSectionFilter.newBuilder()
+        .tagIs(StandardTags.StatementTag.class, StandardTags.ExpressionTag.class)
+        .sourceIs(source -> ToylLanguage.ID.equals(source.getLanguage()))
+        .build();
+    var inputFilter = SourceSectionFilter.newBuilder().tagIs(StandardTags.ExpressionTag.class).build();
+    env.getInstrumenter().attachExecutionEventFactory(filter, inputFilter, this::createNode);
+  }
+
+  @Override
+  protected void onDispose(Env env) {
+    if (!env.getOptions().get(Enabled)) {
+      return;
+    }
+    var file = env.getOptions().get(Output);
+    if (file.isEmpty()) {
+      writeReport(new PrintStream(env.err(), true));
+    } else {
+      try (var out = new PrintStream(Files.newOutputStream(Path.of(file)))) {
+        writeReport(out);
+      } catch (IOException | SecurityException e) {
+        writeReport(new PrintStream(env.err(), true));
+      }
+    }
+  }
+
+  @Override
+  protected OptionDescriptors getOptionDescriptors() {
+    return new ToylAllocationProfilerOptionDescriptors();
+  }
+
+  /**
+   * @return the profiled nodes, in the order they were first instrumented
+   */
+  public synchronized List<Entry> getEntries() {
+    return List.copyOf(entries);
+  }
+
+  public void writeReport(PrintStream out) {
+    var entries = new ArrayList<>(getEntries());
+    entries.sort(Comparator.comparingLong(Entry::getSelfBytes).reversed().thenComparing(Entry::getLocation));
+    out.println("Toyl allocations");
+    if (entries.isEmpty()) {
+      out.println("  none");
+      return;
+    }
+    out.printf("  %12s %12s %10s %10s  %-24s %s%n", "selfBytes", "bytes", "objects", "executions", "location", "node");
+    for (var entry : entries) {
+      out.printf("  %12d %12d %10d %10d  %-24s %s%n", entry.getSelfBytes(), entry.getBytes(), entry.getObjects(),
+          entry.getExecutions(), entry.getLocation(), entry.getNode());
+    }
+  }
+
+  private synchronized Entry createEntry(Node node) {
+    var entry = new Entry(ToylSpecializationTracker.location(node.getSourceSection()),
+        ToylSpecializationTracker.nodeName(node));
+    entries.add(entry);
+    return entry;
+  }
+
+  private ExecutionEventNode createNode(EventContext context) {
+    var node = context.getInstrumentedNode();
+    var entry = createEntry(node);
+    var arithmetic = node instanceof ToylAddNode || node instanceof ToylSubNode
+        || node instanceof ToylMulNode || node instanceof ToylDivNode || node instanceof ToylNegNode
+        || node instanceof ToylMulPowerOfTwoNode || node instanceof ToylDivPowerOfTwoNode;
+    var literal = node instanceof ToylLiteralLongNode;
+    return new ExecutionEventNode() {
+      @Override
+      protected void onEnter(VirtualFrame frame) {
+        enter();
+      }
+
+      @Override
+      protected void onInputValue(VirtualFrame frame, EventContext inputContext, int inputIndex, Object inputValue) {
+        input(inputValue);
+      }
+
+      @Override
+      protected void onReturnValue(VirtualFrame frame, Object result) {
+        exit(entry, result instanceof BigDecimal && (arithmetic || literal), arithmetic);
+      }
+
+      @Override
+      protected void onReturnExceptional(VirtualFrame frame, Throwable exception) {
+        exit(entry, false, false);
+      }
+    };
+  }
+
+  @TruffleBoundary
+  private void enter() {
+    executions.get().enter(THREADS.getCurrentThreadAllocatedBytes());
+  }
+
+  @TruffleBoundary
+  private void input(Object value) {
+    if (value instanceof Long) {
+      var current = executions.get();
+      current.longInputs[current.depth]++;
+    }
+  }
+
+  /**
+   * @param createdResult whether the node created the BigDecimal it returned
+   * @param castInputs whether the node cast its long inputs to BigDecimal to compute its result
+   */
+  @TruffleBoundary
+  private void exit(Entry entry, boolean createdResult, boolean castInputs) {
+    var now = THREADS.getCurrentThreadAllocatedBytes();
+    var current = executions.get();
+    var depth = current.depth--;
+    var bytes = now - current.startBytes[depth];
+    var objects = createdResult ? 1 + (castInputs ? current.longInputs[depth] : 0) : 0;
+    entry.record(bytes, bytes - current.childBytes[depth], objects);
+    if (depth > 0) {
+      current.childBytes[depth - 1] += bytes;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package toyl.tracing;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("toyl.Execute")
+@Label("Toyl Execute")
+@Description("One execution of a Toyl program")
+@Category("Toyl")
+@StackTrace(false)
+public final class ToylExecuteEvent extends Event {
+
+  private static final EventType TYPE = EventType.getEventType(ToylExecuteEvent.class);
+
+  @Label("Source")
+  String source;
+
+  @Label("Statements")
+  long statements;
+
+  @Label("Result Type")
+  String resultType;
+
+  /**
+   * @return a started event, or null if the event is not being recorded
+   */
+  @TruffleBoundary
+  public static ToylExecuteEvent start(String source, long statements) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    var event = new ToylExecuteEvent();
+    event.source = source;
+    event.statements = statements;
+    event.begin();
+    return event;
+  }
+
+  @TruffleBoundary
+  public static void end(ToylExecuteEvent event, Object result) {
+    if (event != null) {
+      event.resultType = result == null ? "null" : result.getClass().getSimpleName();
+      event.commit();
+    }
+  }
+}
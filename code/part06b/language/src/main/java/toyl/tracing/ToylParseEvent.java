@@ -0,0 +1,52 @@
+package toyl.tracing;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("toyl.Parse")
+@Label("Toyl Parse")
+@Description("Parsing a Toyl source into a call target")
+@Category("Toyl")
+@StackTrace(false)
+public final class ToylParseEvent extends Event {
+
+  private static final EventType TYPE = EventType.getEventType(ToylParseEvent.class);
+
+  @Label("Source")
+  String source;
+
+  @Label("Characters")
+  long characters;
+
+  @Label("Statements")
+  long statements;
+
+  /**
+   * @return a started event, or null if the event is not being recorded
+   */
+  @TruffleBoundary
+  public static ToylParseEvent start(String source, long characters) {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+    var event = new ToylParseEvent();
+    event.source = source;
+    event.characters = characters;
+    event.begin();
+    return event;
+  }
+
+  @TruffleBoundary
+  public static void end(ToylParseEvent event, long statements) {
+    if (event != null) {
+      event.statements = statements;
+      event.commit();
+    }
+  }
+}
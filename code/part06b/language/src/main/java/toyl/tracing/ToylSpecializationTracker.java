@@ -0,0 +1,71 @@
+package toyl.tracing;
+
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.source.SourceSection;
+import toyl.ToylLanguage;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the specialization transitions and frame slot invalidations of Toyl nodes per source location, so
+ * that the formulas falling off the fast path can be found. Enabled with {@code --toyl.TraceSpecializations},
+ * every transition is also logged at level FINE to the {@code toyl.specializations} logger as it happens.
+ */
+public final class ToylSpecializationTracker {
+
+  private static final TruffleLogger LOGGER = TruffleLogger.getLogger(ToylLanguage.ID, "specializations");
+
+  private record Key(String location, String node, String transition, String code) {
+  }
+
+  private final Map<Key, Long> counts = new HashMap<>();
+
+  public synchronized void record(Node node, String transition) {
+    var section = node.getSourceSection();
+    var key = new Key(location(section), nodeName(node), transition, code(section));
+    counts.merge(key, 1L, Long::sum);
+    LOGGER.fine(() -> "%s %s at %s: %s".formatted(key.node(), key.transition(), key.location(), key.code()));
+  }
+
+  public synchronized void writeReport(PrintStream out) {
+    out.println("Toyl specialization transitions");
+    if (counts.isEmpty()) {
+      out.println("  none");
+      return;
+    }
+    out.printf("  %8s  %-24s %-20s %s%n", "count", "location", "node", "transition");
+    counts.entrySet().stream()
+        .sorted(Map.Entry.<Key, Long>comparingByValue().reversed()
+            .thenComparing(entry -> entry.getKey().location()))
+        .forEach(entry -> {
+          var key = entry.getKey();
+          out.printf("  %8d  %-24s %-20s %s%n", entry.getValue(), key.location(), key.node(), key.transition());
+          if (!key.code().isEmpty()) {
+            out.printf("  %8s  %s%n", "", key.code());
+          }
+        });
+  }
+
+  static String location(SourceSection section) {
+    if (section == null) {
+      return "<unknown>";
+    }
+    return "%s:%d:%d".formatted(section.getSource().getName(), section.getStartLine(), section.getStartColumn());
+  }
+
+  static String nodeName(Node node) {
+    var name = node.getClass().getSimpleName();
+    return name.endsWith("Gen") ? name.substring(0, name.length() - "Gen".length()) : name;
+  }
+
+  private static String code(SourceSection section) {
+    if (section == null || !section.isAvailable()) {
+      return "";
+    }
+    var code = section.getCharacters().toString().replaceAll("\\s+", " ");
+    return code.length() > 60 ? code.substring(0, 57) + "..." : code;
+  }
+}
@@ -0,0 +1,34 @@
+package toyl.tracing;
+
+import com.oracle.truffle.api.nodes.Node;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("toyl.Specialize")
+@Label("Toyl Specialization Transition")
+@Description("A Toyl node left its fast path, see ToylSpecializationTracker")
+@Category("Toyl")
+public final class ToylSpecializeEvent extends Event {
+
+  @Label("Location")
+  String location;
+
+  @Label("Node")
+  String node;
+
+  @Label("Transition")
+  String transition;
+
+  public static void emit(Node node, String transition) {
+    var event = new ToylSpecializeEvent();
+    if (event.isEnabled()) {
+      event.location = ToylSpecializationTracker.location(node.getSourceSection());
+      event.node = ToylSpecializationTracker.nodeName(node);
+      event.transition = transition;
+      event.commit();
+    }
+  }
+}
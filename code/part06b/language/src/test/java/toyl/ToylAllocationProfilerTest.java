@@ -0,0 +1,74 @@
+package toyl;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import toyl.tracing.ToylAllocationProfiler;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToylAllocationProfilerTest {
+
+  private ByteArrayOutputStream err;
+  private Context context;
+
+  @BeforeEach
+  void setUp() {
+    err = new ByteArrayOutputStream();
+    context = Context.newBuilder(ToylLanguage.ID)
+        .option(ToylAllocationProfiler.ID, "true")
+        .err(err)
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    context.close();
+  }
+
+  private ToylAllocationProfiler.Entry entry(ToylAllocationProfiler profiler, String location) {
+    return profiler.getEntries().stream()
+        .filter(entry -> entry.getLocation().equals(location))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @Test
+  void testAttributesBigDecimalsToNodes() {
+    context.eval(Source.newBuilder(ToylLanguage.ID, """
+        var a = 1.5
+        a + 2
+        a * a
+        2 * 3
+        """, "test.toyl").buildLiteral());
+    var profiler = context.getEngine().getInstruments().get(ToylAllocationProfiler.ID)
+        .lookup(ToylAllocationProfiler.class);
+
+    var addition = entry(profiler, "test.toyl:2:1");
+    assertThat(addition.getNode()).isEqualTo("ToylAddNode");
+    assertThat(addition.getExecutions()).isEqualTo(1);
+    // the sum and the cast of 2
+    assertThat(addition.getObjects()).isEqualTo(2);
+    assertThat(addition.getBytes()).isPositive();
+    assertThat(entry(profiler, "test.toyl:3:1").getObjects()).isEqualTo(1);
+    assertThat(entry(profiler, "test.toyl:4:1").getObjects()).isZero();
+    assertThat(entry(profiler, "test.toyl:3:1").getNode()).isEqualTo("ToylMulNode");
+    assertThat(entry(profiler, "test.toyl:3:5").getNode()).isEqualTo("ToylVarRefNode");
+    assertThat(entry(profiler, "test.toyl:3:5").getObjects()).isZero();
+  }
+
+  @Test
+  void testReportsOnClose() {
+    context.eval(ToylLanguage.ID, "9223372036854775807 + 1");
+    context.close();
+    assertThat(err.toString(StandardCharsets.UTF_8))
+        .contains("Toyl allocations")
+        .contains("ToylAddNode")
+        .contains("ToylLiteralLongNode");
+  }
+}
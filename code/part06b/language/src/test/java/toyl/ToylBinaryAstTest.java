@@ -0,0 +1,78 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.io.ByteSequence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import toyl.binary.ToylAstReader;
+import toyl.binary.ToylAstWriter;
+import toyl.binary.ToylMappedBytes;
+import toyl.parser.ToylPrattParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.tree;
+
+class ToylBinaryAstTest {
+
+  private static final String PROGRAM = """
+      var a = 9223372036854775807
+      var pi = 3.14159
+      a = a + 1 - -2
+      var b = 99999999999999999999.5 * pi / (a - 1)
+      -a * b
+      """;
+
+  @TempDir
+  Path directory;
+
+  private static String eval(Source source) {
+    try (var context = Context.create(ToylLanguage.ID)) {
+      return context.eval(source).asString();
+    }
+  }
+
+  @Test
+  void testReadsTheAstItWrote() throws IOException {
+    var source = source(PROGRAM);
+    var frameDescriptor = new FrameDescriptor();
+    var program = new ToylPrattParser(frameDescriptor, source).parseProgram();
+    var out = new ByteArrayOutputStream();
+    ToylAstWriter.write(program, frameDescriptor, out);
+
+    var loadedFrameDescriptor = new FrameDescriptor();
+    var loaded = ToylAstReader.read(ByteSequence.create(out.toByteArray()), loadedFrameDescriptor, true);
+    assertThat(tree(loaded)).isEqualTo(tree(program));
+    assertThat(loadedFrameDescriptor.getSlots().stream().map(FrameSlot::getIdentifier).toList())
+        .isEqualTo(frameDescriptor.getSlots().stream().map(FrameSlot::getIdentifier).toList());
+  }
+
+  @Test
+  void testRunsACompiledFile() throws IOException {
+    var toyl = Files.writeString(directory.resolve("test.toyl"), PROGRAM);
+    var toylc = directory.resolve("test.toylc");
+    ToylAstWriter.compile(toyl, toylc);
+    var compiled = Source.newBuilder(ToylLanguage.ID, ToylMappedBytes.map(toylc), "test.toylc")
+        .mimeType(ToylLanguage.BINARY_MIME_TYPE)
+        .build();
+    assertThat(eval(compiled)).isEqualTo(eval(Source.create(ToylLanguage.ID, PROGRAM)));
+  }
+
+  @Test
+  void testRejectsOtherFiles() throws IOException {
+    var bytes = Source.newBuilder(ToylLanguage.ID, ByteSequence.create(PROGRAM.getBytes()), "test.toylc")
+        .mimeType(ToylLanguage.BINARY_MIME_TYPE)
+        .build();
+    assertThrows(PolyglotException.class, () -> eval(bytes));
+  }
+}
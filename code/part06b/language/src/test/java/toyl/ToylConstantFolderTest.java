@@ -0,0 +1,124 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.ast.ToylAddNode;
+import toyl.ast.ToylDivNode;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylLiteralNumberNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylNode;
+import toyl.optimizer.ToylConstantFolder;
+import toyl.parser.ToylPrattParser;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static toyl.ToylTestSupport.assertEvaluatesLikeWithout;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.statement;
+
+class ToylConstantFolderTest {
+
+  private static ToylNode fold(String program) {
+    return new ToylConstantFolder().fold(new ToylPrattParser(new FrameDescriptor(), source(program)).parseProgram());
+  }
+
+  @Test
+  void testFoldsNestedArithmeticIntoOneLiteral() {
+    var program = fold("1 + 60 * 60 * 24");
+    assertThat(statement(program, 0)).isInstanceOfSatisfying(ToylLiteralLongNode.class, literal -> {
+      assertThat(literal.getValue()).isEqualTo(86401);
+      assertThat(literal.getSourceCharIndex()).isZero();
+      assertThat(literal.getSourceLength()).isEqualTo(16);
+    });
+  }
+
+  @Test
+  void testKeepsTheSemanticsOfTheArithmeticNodes() {
+    assertThat(statement(fold("9223372036854775807 + 1"), 0)).isInstanceOfSatisfying(ToylLiteralNumberNode.class,
+        literal -> assertThat(literal.getValue()).isEqualTo(new BigDecimal("9223372036854775808")));
+    assertThat(statement(fold("4 / 2"), 0)).isInstanceOfSatisfying(ToylLiteralLongNode.class,
+        literal -> assertThat(literal.getValue()).isEqualTo(2));
+    assertThat(statement(fold("1 / 3"), 0)).isInstanceOfSatisfying(ToylLiteralNumberNode.class,
+        literal -> assertThat(literal.getValue()).isEqualTo(BigDecimal.ONE.divide(new BigDecimal(3),
+            MathContext.DECIMAL128)));
+  }
+
+  @Test
+  void testFoldsOnlyTheLiteralOperands() {
+    var program = fold("var a = 2\na * (3 + 4)\n1 / 0");
+    var multiplication = statement(program, 1);
+    assertThat(multiplication).isInstanceOf(ToylMulNode.class);
+    assertThat(NodeUtil.findNodeChildren(multiplication).get(1)).isInstanceOfSatisfying(ToylLiteralLongNode.class,
+        literal -> assertThat(literal.getValue()).isEqualTo(7));
+    assertThat(statement(program, 2)).isInstanceOf(ToylDivNode.class);
+    assertThat(NodeUtil.findAllNodeInstances(program, ToylAddNode.class)).isEmpty();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "60 * 60 * 24",
+      "9223372036854775807 + 1 - 1",
+      "9223372036854775807 * 2 / 2",
+      "((0 - 9223372036854775807) - 1) / (0 - 1)",
+      "-1.5 * 2",
+      "1 / 3 * 3",
+      "7 / 2 + 0.5",
+      "var x = 3\nx * (1 / 3)",
+      "1 / (2 - 2)",
+  })
+  void testEvaluatesLikeTheUnfoldedProgram(String program) {
+    assertEvaluatesLikeWithout("toyl.ConstantFolding", program);
+  }
+
+  @Test
+  void testFoldsLazilyBuiltStatements() {
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.ConstantFolding", "true")
+        .option("toyl.LazyParsing", "true")
+        .build()) {
+      assertThat(context.eval(ToylLanguage.ID, "var a = 2 * 3\na * (10 - 4)").asString()).isEqualTo("36");
+    }
+  }
+
+  @Test
+  void testRejectsTheDivisionByZeroWhenExecuted() {
+    assertEvaluatesLikeWithout("toyl.ConstantFolding", "1 / 0");
+    assertThrows(PolyglotException.class, () -> {
+      try (var context = Context.newBuilder(ToylLanguage.ID).option("toyl.ConstantFolding", "true").build()) {
+        context.eval(ToylLanguage.ID, "1 / 0");
+      }
+    });
+  }
+
+  @Test
+  void testDoesNotShareProgramsAcrossContextsThatFoldDifferently() {
+    var log = new ByteArrayOutputStream();
+    var source = Source.create(ToylLanguage.ID, "60 * 60 * 24");
+    try (var engine = Engine.newBuilder().option("log.toyl.optimizer.level", "FINE").logHandler(log).build()) {
+      try (var context = Context.newBuilder(ToylLanguage.ID).engine(engine).build()) {
+        assertThat(context.eval(source).asString()).isEqualTo("86400");
+      }
+      assertThat(log.size()).isZero();
+      try (var context = Context.newBuilder(ToylLanguage.ID).engine(engine)
+          .option("toyl.ConstantFolding", "true")
+          .build()) {
+        assertThat(context.eval(source).asString()).isEqualTo("86400");
+      }
+    }
+    // the folding context parsed the source again instead of running the unfolded program
+    assertThat(log.toString(StandardCharsets.UTF_8)).contains("2 folded");
+  }
+}
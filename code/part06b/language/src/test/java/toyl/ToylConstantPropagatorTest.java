@@ -0,0 +1,87 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylVarRefNode;
+import toyl.optimizer.ToylConstantPropagator;
+import toyl.parser.ToylPrattParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static toyl.ToylTestSupport.assertEvaluatesLikeWithout;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.statement;
+
+class ToylConstantPropagatorTest {
+
+  private ToylConstantPropagator propagator;
+
+  private ToylNode propagate(String program) {
+    propagator = new ToylConstantPropagator();
+    return propagator.propagate(new ToylPrattParser(new FrameDescriptor(), source(program)).parseProgram());
+  }
+
+  @Test
+  void testCollapsesAProgramOfConstants() {
+    var program = propagate("""
+        var a = 2
+        var b = a * 3
+        a = a + b
+        a * b
+        """);
+    assertThat(statement(program, 3)).isInstanceOfSatisfying(ToylLiteralLongNode.class,
+        literal -> assertThat(literal.getValue()).isEqualTo(48));
+    assertThat(NodeUtil.findAllNodeInstances(program, ToylVarRefNode.class)).isEmpty();
+    assertThat(propagator.getPropagatedCount()).isEqualTo(5);
+  }
+
+  /**
+   * Every value is known when parsing except the result of arithmetic that throws, so that is what the copied
+   * variables are defined with.
+   */
+  @Test
+  void testReadsTheOriginalOfACopy() {
+    var program = propagate("""
+        var a = 1 / 0
+        var b = a
+        var c = b
+        c * c
+        """);
+    var product = statement(program, 3);
+    assertThat(product).isInstanceOf(ToylMulNode.class);
+    assertThat(NodeUtil.findAllNodeInstances(product, ToylVarRefNode.class))
+        .extracting(ToylVarRefNode::getName)
+        .containsExactly("a", "a");
+  }
+
+  @Test
+  void testKeepsTheCopyWhenTheOriginalChanges() {
+    var program = propagate("""
+        var a = 1 / 0
+        var c = a
+        a = 2 / 0
+        c
+        """);
+    assertThat(statement(program, 3)).isInstanceOfSatisfying(ToylVarRefNode.class,
+        reference -> assertThat(reference.getName()).isEqualTo("c"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "var a = 2\nvar b = a * 3\na = a + b\na * b",
+      "var a = 9223372036854775807\nvar b = a + 1\nb - a",
+      "var a = 1\na = a / 3\nvar c = a\na = c * 3\nc + a",
+      "var a = 1.5\nvar b = a\nb = b * 2\na + b",
+      "var a = a\na",
+      "var a = 0\nvar b = 1 / a\nb",
+      "var a = 4\nvar b = a\nvar c = b\na = 5\nc + b + a",
+  })
+  void testEvaluatesLikeTheProgramWithoutPropagation(String program) {
+    assertEvaluatesLikeWithout("toyl.ConstantPropagation", program);
+  }
+}
@@ -0,0 +1,61 @@
+package toyl;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToylFlightRecorderTest {
+
+  private List<RecordedEvent> record(String program) throws IOException {
+    var file = Files.createTempFile("toyl", ".jfr");
+    try (var recording = new Recording()) {
+      recording.enable("toyl.Parse");
+      recording.enable("toyl.Execute");
+      recording.enable("toyl.Specialize");
+      recording.start();
+      try (var context = Context.create()) {
+        context.eval(Source.newBuilder(ToylLanguage.ID, program, "test.toyl").buildLiteral());
+      }
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+    return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+  }
+
+  @Test
+  void testParseExecuteAndSpecializeEvents() throws IOException {
+    var events = record("""
+        var a = 9223372036854775807
+        a + 1
+        """);
+
+    assertThat(events(events, "toyl.Parse")).singleElement().satisfies(event -> {
+      assertThat(event.getString("source")).isEqualTo("test.toyl");
+      assertThat(event.getLong("statements")).isEqualTo(2);
+    });
+    assertThat(events(events, "toyl.Execute")).singleElement().satisfies(event -> {
+      assertThat(event.getString("source")).isEqualTo("test.toyl");
+      assertThat(event.getString("resultType")).isEqualTo("BigDecimal");
+    });
+    assertThat(events(events, "toyl.Specialize")).singleElement().satisfies(event -> {
+      assertThat(event.getString("location")).isEqualTo("test.toyl:2:1");
+      assertThat(event.getString("node")).isEqualTo("ToylAddNode");
+      assertThat(event.getString("transition")).isEqualTo("addLongs -> addNumbers (long overflow)");
+    });
+  }
+}
@@ -0,0 +1,134 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylProgramNode;
+import toyl.errors.ToylParseError;
+import toyl.errors.ToylSemanticError;
+import toyl.parser.ToylIncrementalParser;
+import toyl.parser.ToylPrattParser;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static toyl.ToylTestSupport.source;
+
+class ToylIncrementalParserTest {
+
+  private static final String PROGRAM = """
+      var a = 1
+      var b = a * 2
+      a = a + b
+      (a +
+       b) * 3
+      var c = 9223372036854775807 + a
+      -c / 2
+      """;
+
+  /**
+   * @return the tree with the source section of every node
+   */
+  private static String tree(ToylNode program) {
+    var tree = new StringBuilder(ToylTestSupport.tree(program));
+    program.accept(node -> {
+      if (node instanceof ToylNode toylNode) {
+        tree.append("%s %d %d%n".formatted(node.getClass().getSimpleName(), toylNode.getSourceCharIndex(),
+            toylNode.getSourceLength()));
+      }
+      return true;
+    });
+    return tree.toString();
+  }
+
+  private static String edit(String program, int offset, int removedLength, String inserted) {
+    return program.substring(0, offset) + inserted + program.substring(offset + removedLength);
+  }
+
+  private static ToylIncrementalParser parser(String program) {
+    var parser = new ToylIncrementalParser(new FrameDescriptor(), source(program));
+    parser.parseProgram();
+    return parser;
+  }
+
+  private static Stream<Arguments> edits() {
+    return Stream.of(
+        arguments(0, 0, "  "),
+        arguments(0, 0, "var x = 4\n"),
+        arguments(8, 1, "2"),
+        arguments(8, 1, "1 + 1"),
+        arguments(9, 1, ""),
+        arguments(9, 0, " - 1"),
+        arguments(34, 0, "-"),
+        arguments(34, 13, ""),
+        arguments(24, 0, "1\n"),
+        arguments(33, 1, ""),
+        arguments(35, 1, "b"),
+        arguments(46, 0, " * 5"),
+        arguments(78, 0, "\nvar d = c"),
+        arguments(78, 0, " * c"),
+        arguments(0, 85, "7")
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("edits")
+  void testBuildsTheTreeOfAFullParse(int offset, int removedLength, String inserted) {
+    var parser = parser(PROGRAM);
+    var program = parser.reparse(offset, removedLength, inserted);
+
+    var edited = edit(PROGRAM, offset, removedLength, inserted);
+    assertThat(parser.getSource().getCharacters().toString()).isEqualTo(edited);
+    assertThat(tree(program)).isEqualTo(tree(new ToylPrattParser(new FrameDescriptor(), source(edited))
+        .parseProgram()));
+  }
+
+  @Test
+  void testReusesTheStatementsTheEditDoesNotTouch() {
+    var parser = parser(PROGRAM);
+    var before = (ToylProgramNode) parser.reparse(0, 0, "");
+    var after = (ToylProgramNode) parser.reparse(PROGRAM.indexOf("a + b"), 1, "b");
+
+    assertThat(parser.getReparsedStatementCount()).isEqualTo(1);
+    var statementsBefore = before.getStatements();
+    var statementsAfter = after.getStatements();
+    assertThat(statementsAfter).hasSameSizeAs(statementsBefore);
+    for (int i = 0; i < statementsAfter.size(); i++) {
+      if (i == 2) {
+        assertThat(statementsAfter.get(i)).isNotSameAs(statementsBefore.get(i));
+      } else {
+        assertThat(statementsAfter.get(i)).isSameAs(statementsBefore.get(i));
+      }
+    }
+  }
+
+  @Test
+  void testKeepsThePreviousProgramWhenAnEditDoesNotParse() {
+    var parser = parser(PROGRAM);
+    var error = assertThrows(ToylParseError.class, () -> parser.reparse(PROGRAM.indexOf("(a"), 1, "1 +)"));
+    assertThat(error.getMessage()).isEqualTo(assertThrows(ToylParseError.class, () ->
+        new ToylPrattParser(new FrameDescriptor(), source(edit(PROGRAM, PROGRAM.indexOf("(a"), 1, "1 +)"))))
+            .parseProgram()).getMessage());
+    assertThrows(ToylSemanticError.class, () -> parser.reparse(0, 0, "var y = z\n"));
+
+    assertThat(parser.getSource().getCharacters().toString()).isEqualTo(PROGRAM);
+    var program = parser.reparse(PROGRAM.length(), 0, "var y = c\n");
+    var edited = PROGRAM + "var y = c\n";
+    assertThat(tree(program)).isEqualTo(tree(new ToylPrattParser(new FrameDescriptor(), source(edited))
+        .parseProgram()));
+  }
+
+  @Test
+  void testRemovesTheSlotsOfDeletedDeclarations() {
+    var frameDescriptor = new FrameDescriptor();
+    var parser = new ToylIncrementalParser(frameDescriptor, source("var x = 1\nvar y = 2\nx"));
+    parser.parseProgram();
+    parser.reparse(10, 10, "");
+    assertThat(frameDescriptor.getIdentifiers()).containsExactly("x");
+  }
+}
@@ -0,0 +1,95 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventListener;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.StandardTags;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToylInstrumentationTest {
+
+  @TruffleInstrument.Registration(id = SectionRecorder.ID, services = SectionRecorder.class)
+  public static class SectionRecorder extends TruffleInstrument {
+    static final String ID = "toyl-test-section-recorder";
+
+    private Env env;
+    private final List<String> entered = new ArrayList<>();
+
+    @Override
+    protected void onCreate(Env env) {
+      this.env = env;
+      env.registerService(this);
+    }
+
+    void record(Class<?> tag) {
+      var filter = SourceSectionFilter.newBuilder().tagIs(tag).build();
+      env.getInstrumenter().attachExecutionEventListener(filter, new ExecutionEventListener() {
+        @Override
+        public void onEnter(EventContext context, VirtualFrame frame) {
+          var section = context.getInstrumentedSourceSection();
+          entered.add("%d:%s".formatted(section.getStartLine(), section.getCharacters()));
+        }
+
+        @Override
+        public void onReturnValue(EventContext context, VirtualFrame frame, Object result) {
+        }
+
+        @Override
+        public void onReturnExceptional(EventContext context, VirtualFrame frame, Throwable exception) {
+        }
+      });
+    }
+  }
+
+  private static final String PROGRAM = """
+      var a = 1
+      a = a + 2
+      (-a) * (3 - 1)
+      """;
+
+  private Context context;
+
+  @BeforeEach
+  void setUp() {
+    context = Context.create();
+  }
+
+  @AfterEach
+  void tearDown() {
+    context.close();
+  }
+
+  private List<String> entered(Class<?> tag) {
+    var recorder = context.getEngine().getInstruments().get(SectionRecorder.ID).lookup(SectionRecorder.class);
+    recorder.record(tag);
+    assertThat(context.eval(ToylLanguage.ID, PROGRAM).asString()).isEqualTo("-6");
+    return recorder.entered;
+  }
+
+  @Test
+  void testStatements() {
+    assertThat(entered(StandardTags.StatementTag.class))
+        .containsExactly("1:var a = 1", "2:a = a + 2", "3:(-a) * (3 - 1)");
+  }
+
+  @Test
+  void testExpressions() {
+    assertThat(entered(StandardTags.ExpressionTag.class))
+        .containsExactly("1:1", "2:a + 2", "2:a", "2:2", "3:(-a) * (3 - 1)", "3:-a", "3:a", "3:3 - 1", "3:3", "3:1");
+  }
+
+  @Test
+  void testRoot() {
+    assertThat(entered(StandardTags.RootTag.class)).containsExactly("1:" + PROGRAM.strip());
+  }
+}
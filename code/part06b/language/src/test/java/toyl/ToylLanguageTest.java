@@ -65,6 +65,15 @@ class ToylLanguageTest {
     assertEquals("1", eval("2-1"));
   }
 
+  @Test
+  void testNegation() {
+    assertEquals("-1.50", eval("var a = 1.50\n-a"));
+    assertEquals("-3", eval("var a = 1\n-(a + 2)"));
+    assertEquals("9223372036854775808", eval("var a = 0 - 9223372036854775807 - 1\n-a"));
+    assertEquals("-33333333333333333333333333333333330000",
+        eval("var x = 99999999999999999999999999999999999999 / 3\n-x"));
+  }
+
   @Test
   void testVariables() {
     var program = """
@@ -116,6 +125,17 @@ var a * 3
 """);
   }
 
+  @Test
+  void testSyntaxErrorAfterValidStatements() {
+    var program = "var a = 1\na + 2\nvar b * 3";
+    var error = assertThrows(PolyglotException.class, () -> eval(program));
+    assertThat(error.getMessage()).isEqualTo("""
+Syntax error on line 3: mismatched input '*' expecting '='
+var b * 3
+      ^
+""");
+  }
+
   @Test
   void testAssignmentToNonExisting() {
     var program = "a = 1";
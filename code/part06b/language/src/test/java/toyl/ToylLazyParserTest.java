@@ -0,0 +1,68 @@
+package toyl;
+
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.ast.ToylLazyStatementNode;
+import toyl.ast.ToylRootNode;
+import toyl.parser.ToylLazyParser;
+import toyl.parser.ToylPrattParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static toyl.ToylTestSupport.assertEvaluatesLikeWithout;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.tree;
+
+class ToylLazyParserTest {
+
+  private static final String PROGRAM = """
+      var a = 1
+      var b = a * 2
+      a = a + b
+      (a +
+       b) * 3
+      var c = 9223372036854775807 + a
+      -c / 2
+      """;
+
+  @Test
+  void testBuildsStatementsWhenTheyAreFirstExecuted() {
+    try (var context = Context.create()) {
+      context.initialize(ToylLanguage.ID);
+      context.enter();
+      var frameDescriptor = new FrameDescriptor();
+      var source = source(PROGRAM);
+      var program = new ToylLazyParser(frameDescriptor, source).parseProgram();
+      var root = new ToylRootNode(null, frameDescriptor, program, source.createSection(0, source.getLength()));
+      assertThat(NodeUtil.findAllNodeInstances(root, ToylLazyStatementNode.class)).hasSize(6);
+      assertThat(frameDescriptor.getIdentifiers()).containsExactlyInAnyOrder("a", "b", "c");
+
+      Truffle.getRuntime().createCallTarget(root).call();
+      assertThat(NodeUtil.findAllNodeInstances(root, ToylLazyStatementNode.class)).isEmpty();
+      assertThat(tree(program)).isEqualTo(tree(new ToylPrattParser(new FrameDescriptor(), source).parseProgram()));
+      context.leave();
+    }
+  }
+
+  @Test
+  void testEvaluatesLikeTheEagerParser() {
+    assertEvaluatesLikeWithout("toyl.LazyParsing", PROGRAM);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "1 +",
+      "a = 1",
+      "var x = 1\nvar x = 2",
+      "var x = y",
+      "1\n2 # 3",
+      "var x = 1\nx = undeclared\n1 +",
+  })
+  void testReportsErrorsWhenParsing(String program) {
+    assertEvaluatesLikeWithout("toyl.LazyParsing", program);
+  }
+}
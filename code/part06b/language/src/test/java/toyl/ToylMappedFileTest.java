@@ -0,0 +1,61 @@
+package toyl;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.parser.ToylMappedFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ToylMappedFileTest {
+
+  @TempDir
+  Path directory;
+
+  private Source mapped(String program) throws IOException {
+    var file = Files.writeString(directory.resolve("test.toyl"), program);
+    return Source.newBuilder(ToylLanguage.ID, ToylMappedFile.map(file), "test.toyl").build();
+  }
+
+  @Test
+  void testReadsTheBytesOfTheFile() throws IOException {
+    var file = Files.writeString(directory.resolve("test.toyl"), "var a = 1\na * 2");
+    var chars = ToylMappedFile.map(file);
+    assertThat(chars.length()).isEqualTo(15);
+    assertThat(chars.charAt(10)).isEqualTo('a');
+    assertThat(chars.toString()).isEqualTo("var a = 1\na * 2");
+    assertThat(chars.subSequence(4, 9).toString()).isEqualTo("a = 1");
+    assertThat(chars.subSequence(4, 9).subSequence(4, 5).toString()).isEqualTo("1");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {ToylLanguage.ANTLR_PARSER, ToylLanguage.PRATT_PARSER})
+  void testEvaluatesAMappedFile(String parser) throws IOException {
+    try (var context = Context.newBuilder(ToylLanguage.ID).option("toyl.Parser", parser).build()) {
+      assertThat(context.eval(mapped("var a = 1\na = a + 2\n(-a) * (3.5 - 1)")).asString()).isEqualTo("-7.5");
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {ToylLanguage.ANTLR_PARSER, ToylLanguage.PRATT_PARSER})
+  void testReportsErrorsInAMappedFile(String parser) throws IOException {
+    try (var context = Context.newBuilder(ToylLanguage.ID).option("toyl.Parser", parser).build()) {
+      var source = mapped("var a = 1\na # 2");
+      var error = assertThrows(PolyglotException.class, () -> context.eval(source));
+      assertThat(error.getMessage()).isEqualTo("""
+Syntax error on line 2: token recognition error at: '#'
+a # 2
+  ^
+""");
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.ast.ToylLiteralLongNode;
+import toyl.ast.ToylLiteralNumberNode;
+import toyl.ast.ToylNegNode;
+import toyl.parser.ToylNodeFactory;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToylNodeFactoryTest {
+
+  /**
+   * Numbers are parsed from the characters without BigDecimal where they can, and have to end up as the literal
+   * {@code new BigDecimal(text).longValueExact()} decides on.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "0", "7", "42", "007", "2.0", "2.000", "3.14", "0.5", "10.50", "1.01",
+      "9223372036854775807", "9223372036854775807.0", "9223372036854775808", "9223372036854775808.0",
+      "99999999999999999999", "18446744073709551616", "92233720368547758070",
+  })
+  void testCreatesTheLiteralOfTheNumber(String text) {
+    var number = new BigDecimal(text);
+    var chars = "x + " + text + " * y";
+    var literal = new ToylNodeFactory(new FrameDescriptor()).createNumberLiteral(chars, 4, 4 + text.length());
+    try {
+      var expected = number.longValueExact();
+      assertThat(literal).isInstanceOfSatisfying(ToylLiteralLongNode.class,
+          node -> assertThat(node.getValue()).isEqualTo(expected));
+    } catch (ArithmeticException e) {
+      assertThat(literal).isInstanceOfSatisfying(ToylLiteralNumberNode.class,
+          node -> assertThat(node.getValue()).isEqualTo(number));
+    }
+  }
+
+  @Test
+  void testNegatesLiteralsWithoutANode() {
+    var factory = new ToylNodeFactory(new FrameDescriptor());
+    assertThat(factory.createUnaryMinus(factory.createNumberLiteral("5"))).isInstanceOfSatisfying(
+        ToylLiteralLongNode.class, node -> assertThat(node.getValue()).isEqualTo(-5));
+    assertThat(factory.createUnaryMinus(factory.createNumberLiteral("9223372036854775808"))).isInstanceOfSatisfying(
+        ToylLiteralNumberNode.class,
+        node -> assertThat(node.getValue()).isEqualTo(new BigDecimal("-9223372036854775808")));
+    factory.declareVariable("x");
+    assertThat(factory.createUnaryMinus(factory.createVarRef("x"))).isInstanceOf(ToylNegNode.class);
+  }
+}
@@ -0,0 +1,90 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.parser.ToylParallelParser;
+import toyl.parser.ToylPrattParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.tree;
+
+/**
+ * Parses programs in chunks of a few statements, they have to give the same AST and errors as a sequential parse.
+ */
+class ToylParallelParserTest {
+
+  private static final int CHUNK_LENGTH = 40;
+
+  private static final String PROGRAM = """
+      var a = 1
+      var b = a * 2
+      a = a + b
+      -a
+      (a +
+       b) * 3
+      var c = 9223372036854775807 + a
+      b = c
+      a
+      -1
+      var d = c / 3 var e = d - -1
+      e = e * e
+      b
+      (a)
+      """;
+
+  private static String error(ToylParallelParser parser) {
+    return assertThrows(RuntimeException.class, parser::parseProgram).getMessage();
+  }
+
+  private static String sequentialError(String program) {
+    return assertThrows(RuntimeException.class,
+        () -> new ToylPrattParser(new FrameDescriptor(), source(program)).parseProgram()).getMessage();
+  }
+
+  @Test
+  void testBuildsTheSameAst() {
+    var parser = new ToylParallelParser(new FrameDescriptor(), source(PROGRAM), CHUNK_LENGTH);
+    var program = parser.parseProgram();
+    assertThat(parser.getChunkCount()).isGreaterThan(1);
+    var sequential = new ToylPrattParser(new FrameDescriptor(), source(PROGRAM));
+    assertThat(tree(program)).isEqualTo(tree(sequential.parseProgram()));
+    assertThat(parser.getTokenCount()).isEqualTo(sequential.getTokenCount());
+  }
+
+  @Test
+  void testParsesShortSourcesSequentially() {
+    var parser = new ToylParallelParser(new FrameDescriptor(), source(PROGRAM));
+    parser.parseProgram();
+    assertThat(parser.getChunkCount()).isEqualTo(1);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "x = 1",
+      "var x = 2\nvar a = 3",
+      "var x = y",
+      "b = y",
+      "a = (1 +\nvar x = 2)",
+      "a * * 3",
+      "a # 3",
+      "var q = 1\nq = undeclared\n1 +",
+  })
+  void testReportsTheSameErrors(String statement) {
+    var program = PROGRAM + statement + "\n" + PROGRAM.replace("var ", "");
+    var parser = new ToylParallelParser(new FrameDescriptor(), source(program), CHUNK_LENGTH);
+    assertThat(error(parser)).isEqualTo(sequentialError(program));
+  }
+
+  @Test
+  void testEvaluatesWithTheParallelParser() {
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.Parser", ToylLanguage.PARALLEL_PARSER).build()) {
+      assertThat(context.eval(ToylLanguage.ID, PROGRAM).asString()).isEqualTo("3");
+    }
+  }
+}
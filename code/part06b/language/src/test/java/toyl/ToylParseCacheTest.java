@@ -0,0 +1,75 @@
+package toyl;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ToylParseCacheTest {
+
+  @TempDir
+  Path directory;
+
+  private String eval(String program, int cacheSize) {
+    // a new context every time, nothing is shared but the cache directory
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.ParseCache", directory.toString())
+        .option("toyl.ParseCacheSize", String.valueOf(cacheSize))
+        .build()) {
+      return context.eval(Source.newBuilder(ToylLanguage.ID, program, "test.toyl").cached(false).buildLiteral())
+          .asString();
+    }
+  }
+
+  private long entries() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(".toylc")).count();
+    }
+  }
+
+  @Test
+  void testRunsTheCachedProgram() throws IOException {
+    assertThat(eval("var a = 1\na = a + 2.5\na * 2", 1)).isEqualTo("7.0");
+    assertThat(entries()).isEqualTo(1);
+    assertThat(eval("var a = 1\na = a + 2.5\na * 2", 1)).isEqualTo("7.0");
+    assertThat(entries()).isEqualTo(1);
+    assertThat(eval("var a = 2\na = a + 2.5\na * 2", 1)).isEqualTo("9.0");
+    assertThat(entries()).isEqualTo(2);
+  }
+
+  @Test
+  void testEvictsTheLeastRecentlyUsedPrograms() throws IOException {
+    var program = new StringBuilder("var a = 0\n");
+    // an entry of more than half a megabyte
+    for (int i = 0; i < 15_000; i++) {
+      program.append("a = a + ").append(i).append('\n');
+    }
+    eval(program + "1", 1);
+    eval(program + "2", 1);
+    assertThat(entries()).isEqualTo(1);
+    assertThat(eval(program + "2", 1)).isEqualTo("2");
+  }
+
+  @Test
+  void testReparsesUnreadableEntries() throws IOException {
+    eval("1 + 2", 1);
+    try (var files = Files.list(directory)) {
+      Files.writeString(files.findFirst().orElseThrow(), "not an AST");
+    }
+    assertThat(eval("1 + 2", 1)).isEqualTo("3");
+  }
+
+  @Test
+  void testDoesNotCacheErrors() throws IOException {
+    assertThrows(PolyglotException.class, () -> eval("a + 1", 1));
+    assertThat(entries()).isZero();
+  }
+}
@@ -0,0 +1,53 @@
+package toyl;
+
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToylParseStatisticsTest {
+
+  @Test
+  void testStatisticsArePerPhase() {
+    try (var context = Context.newBuilder(ToylLanguage.ID).option("toyl.ParseStatistics", "true").build()) {
+      context.eval(ToylLanguage.ID, "var a = 1\na + 2");
+      context.eval(ToylLanguage.ID, "(1 + 2) * 3");
+      var statistics = context.getBindings(ToylLanguage.ID).getMember("parseStatistics");
+      assertThat(statistics.getMemberKeys()).containsExactly(
+          "parses", "tokens", "parseTreeNodes", "astNodes", "lexNanos", "parseNanos", "predictionNanos");
+      assertThat(statistics.getMember("parses").asLong()).isEqualTo(2);
+      // var a = 1 a + 2 <EOF> and ( 1 + 2 ) * 3 <EOF>
+      assertThat(statistics.getMember("tokens").asLong()).isEqualTo(8 + 8);
+      assertThat(statistics.getMember("parseTreeNodes").asLong()).isGreaterThan(16);
+      // two programs, a declaration with its literal, an addition with a reference and a literal,
+      // a multiplication of an addition of two literals and a literal
+      assertThat(statistics.getMember("astNodes").asLong()).isEqualTo(2 + 2 + 3 + 5);
+      assertThat(statistics.getMember("parseNanos").asLong())
+          .isGreaterThanOrEqualTo(statistics.getMember("predictionNanos").asLong());
+    }
+  }
+
+  @Test
+  void testLeavesOutThePhasesOfAnotherFrontEnd() {
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.ParseStatistics", "true")
+        .option("toyl.Parser", ToylLanguage.PRATT_PARSER)
+        .build()) {
+      context.eval(ToylLanguage.ID, "(1 + 2) * 3");
+      var statistics = context.getBindings(ToylLanguage.ID).getMember("parseStatistics");
+      assertThat(statistics.getMember("parses").asLong()).isEqualTo(1);
+      assertThat(statistics.getMember("parseTreeNodes").asLong()).isEqualTo(-1);
+      assertThat(statistics.getMember("lexNanos").asLong()).isEqualTo(-1);
+      assertThat(statistics.getMember("predictionNanos").asLong()).isEqualTo(-1);
+      assertThat(statistics.toString()).contains("parseNanos=").doesNotContain("lexNanos");
+    }
+  }
+
+  @Test
+  void testNoStatisticsByDefault() {
+    try (var context = Context.create()) {
+      context.eval(ToylLanguage.ID, "1");
+      assertThat(context.getBindings(ToylLanguage.ID).hasMember("parseStatistics")).isFalse();
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static toyl.ToylTestSupport.evalWith;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.tree;
+
+/**
+ * Runs the pratt parser alongside the ANTLR parser, they have to build the same ASTs and report the same errors.
+ */
+class ToylPrattParserTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "1",
+      "2+3.0",
+      "(4-3+1)*5/4",
+      "-1 + 2",
+      "1- -1",
+      "1\n-1",
+      "-(1)*2",
+      "((1))",
+      "a * b",
+      "9223372036854775807 + 1 * 99999999999999999999",
+      "var a = 1\na = a + 2\n(-a) * (3 - 1)",
+      "var pi = 3.14\nvar r = 42\npi * r * r",
+      "var a = 1 var b = a b = 2 * (a + b) a b",
+      "var variable = 1\nvariable",
+  })
+  void testBuildsTheSameAst(String program) throws IOException {
+    String expected;
+    try {
+      expected = tree(ToylLanguage.parseProgram(new FrameDescriptor(), source(program)));
+    } catch (RuntimeException e) {
+      assertThat(evalWith("toyl.Parser", ToylLanguage.PRATT_PARSER, program))
+          .isEqualTo(evalWith("toyl.Parser", ToylLanguage.ANTLR_PARSER, program));
+      return;
+    }
+    assertThat(tree(ToylLanguage.parsePratt(new FrameDescriptor(), source(program), null))).isEqualTo(expected);
+    assertThat(evalWith("toyl.Parser", ToylLanguage.PRATT_PARSER, program))
+        .isEqualTo(evalWith("toyl.Parser", ToylLanguage.ANTLR_PARSER, program));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "var a * 3",
+      "*",
+      ") 1",
+      "1 + *",
+      "1 +",
+      "1 + )",
+      "1 + * 2",
+      "( * 1)",
+      "- * 1",
+      "(1",
+      "((1",
+      "((1)",
+      "(1 2)",
+      "(1 2 3)",
+      "(1 (",
+      "(1 var",
+      "((1 var",
+      "(1 = 2)",
+      "var = 3",
+      "var",
+      "var a",
+      "var a 3",
+      "var a var",
+      "var var = 1",
+      "var a = = 3",
+      "a =",
+      "a = )",
+      "a =\n\n =",
+      "a = b = 3",
+      "1 = 2",
+      "(1))",
+      "var a = 1 )",
+      "1.x",
+      "1 # 2",
+      "a = 1",
+      "a * 1",
+      "var a = 1\nvar a = 2",
+      "b = 1\n1 +",
+      "b\nc = 1",
+  })
+  void testReportsTheSameErrors(String program) {
+    assertThat(evalWith("toyl.Parser", ToylLanguage.PRATT_PARSER, program))
+        .isEqualTo(evalWith("toyl.Parser", ToylLanguage.ANTLR_PARSER, program));
+  }
+}
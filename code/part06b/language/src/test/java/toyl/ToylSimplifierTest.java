@@ -0,0 +1,131 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.ast.ToylAddNode;
+import toyl.ast.ToylDivNode;
+import toyl.ast.ToylDivPowerOfTwoNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylMulPowerOfTwoNode;
+import toyl.ast.ToylNegNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylSubNode;
+import toyl.ast.ToylVarRefNode;
+import toyl.optimizer.ToylSimplifier;
+import toyl.parser.ToylPrattParser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static toyl.ToylTestSupport.assertEvaluatesLikeWithout;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.statement;
+
+class ToylSimplifierTest {
+
+  private ToylSimplifier simplifier;
+
+  private ToylNode simplify(String program) {
+    simplifier = new ToylSimplifier();
+    return simplifier.simplify(new ToylPrattParser(new FrameDescriptor(), source(program)).parseProgram());
+  }
+
+  @Test
+  void testDropsMultiplicationsByOne() {
+    var program = simplify("var x = 3\nx * 1\n1 * x\n(x * 1) * 1");
+    for (int i = 1; i <= 3; i++) {
+      assertThat(statement(program, i)).isInstanceOfSatisfying(ToylVarRefNode.class,
+          reference -> assertThat(reference.getName()).isEqualTo("x"));
+    }
+    assertThat(simplifier.getRewriteCount()).isEqualTo(4);
+  }
+
+  @Test
+  void testNegatesInsteadOfMultiplyingByMinusOne() {
+    var program = simplify("var x = 3\nx * -1\n-1 * x");
+    assertThat(statement(program, 1)).isInstanceOf(ToylNegNode.class);
+    assertThat(statement(program, 2)).isInstanceOf(ToylNegNode.class);
+  }
+
+  @Test
+  void testShiftsForPowersOfTwo() {
+    var program = simplify("var x = 3\nx * 8\n4 * x\nx / 2\nx / 1");
+    assertThat(statement(program, 1)).isInstanceOfSatisfying(ToylMulPowerOfTwoNode.class,
+        multiplication -> assertThat(multiplication.getShift()).isEqualTo(3));
+    assertThat(statement(program, 2)).isInstanceOfSatisfying(ToylMulPowerOfTwoNode.class,
+        multiplication -> assertThat(multiplication.getShift()).isEqualTo(2));
+    assertThat(statement(program, 3)).isInstanceOfSatisfying(ToylDivPowerOfTwoNode.class,
+        division -> assertThat(division.getShift()).isEqualTo(1));
+    assertThat(statement(program, 4)).isInstanceOfSatisfying(ToylDivPowerOfTwoNode.class,
+        division -> assertThat(division.getShift()).isZero());
+    assertThat(statement(program, 1).getSourceCharIndex()).isEqualTo(10);
+    assertThat(statement(program, 1).getSourceLength()).isEqualTo(5);
+  }
+
+  @Test
+  void testKeepsWhatChangesTheResult() {
+    var program = simplify("var x = 3\nx * 0\nx * 1.0\nx * 3\nx / 0\n8 / x\n(x * 4) / 2\nx + 0\nx - 0\n0 - x");
+    assertThat(statement(program, 1)).isInstanceOf(ToylMulNode.class);
+    assertThat(statement(program, 2)).isInstanceOf(ToylMulNode.class);
+    assertThat(statement(program, 3)).isInstanceOf(ToylMulNode.class);
+    assertThat(statement(program, 4)).isInstanceOf(ToylDivNode.class);
+    assertThat(statement(program, 5)).isInstanceOf(ToylDivNode.class);
+    assertThat(statement(program, 6)).isInstanceOf(ToylDivPowerOfTwoNode.class);
+    assertThat(NodeUtil.findNodeChildren(statement(program, 6)).get(0)).isInstanceOf(ToylMulPowerOfTwoNode.class);
+    // the sum has a scale of at least 0, x alone may have a negative one
+    assertThat(statement(program, 7)).isInstanceOf(ToylAddNode.class);
+    assertThat(statement(program, 8)).isInstanceOf(ToylSubNode.class);
+    assertThat(statement(program, 9)).isInstanceOf(ToylSubNode.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "var x = 3\n(x + 0) * 1 - 0",
+      "var x = 9223372036854775807\nx * 2",
+      "var x = 4611686018427387904\nx * 2 / 2",
+      "var x = 0 - 4611686018427387904\nx * 2",
+      "var x = 0 - 9223372036854775807 - 1\n0 - x",
+      "var x = 0 - 9223372036854775807 - 1\nx * -1",
+      "var x = 7\nx / 2",
+      "var x = 0 - 7\nx / 4",
+      "var x = 0 - 8\nx / 4",
+      "var x = 1.5\nx / 1 * 4 + 0",
+      "var x = 1 / 3\nx / 1",
+      "var x = 2.50\nx * 1 + x * 8",
+      "var x = 5\nvar y = 0\ny = x * 4611686018427387904\ny / 2",
+      "var x = 99999999999999999999999999999999999999 / 3\nx + 0",
+      "var x = 99999999999999999999999999999999999999 / 3\n0 - x",
+      "var x = 99999999999999999999999999999999999999 / 3\nx * 1 + x * -1 + x * 2 + x / 2",
+  })
+  void testEvaluatesLikeTheUnsimplifiedProgram(String program) {
+    assertEvaluatesLikeWithout("toyl.AlgebraicSimplification", program);
+  }
+
+  @Test
+  void testSimplifiesLazilyBuiltStatements() {
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.AlgebraicSimplification", "true")
+        .option("toyl.LazyParsing", "true")
+        .build()) {
+      assertThat(context.eval(ToylLanguage.ID, "var a = 3\na * 4 / 2 + 0").asString()).isEqualTo("6");
+    }
+  }
+
+  @Test
+  void testReportsTheRewritesOfEveryProgram() {
+    var log = new ByteArrayOutputStream();
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.AlgebraicSimplification", "true")
+        .option("log.toyl.optimizer.level", "FINE")
+        .logHandler(log)
+        .build()) {
+      context.eval(ToylLanguage.ID, "var x = 3\nx * 1 + x * 2");
+    }
+    assertThat(log.toString(StandardCharsets.UTF_8)).contains("0 folded, 0 propagated, 2 rewritten");
+  }
+}
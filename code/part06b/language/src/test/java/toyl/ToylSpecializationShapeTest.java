@@ -0,0 +1,162 @@
+package toyl;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.dsl.Introspection;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import org.graalvm.polyglot.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import toyl.ast.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the shape hot Toyl code is specialized into, so that the code partial evaluation sees stays on
+ * the fast paths: long arithmetic without BigDecimal specializations, long frame slot reads and a
+ * statement loop that can be unrolled.
+ * <p>
+ * Asserting on the compiled graph itself needs the Graal compiler's partial evaluation test harness,
+ * which is not available on a stock JDK. These tests assert on its input instead: the specializations the
+ * DSL nodes have settled on after running the call target.
+ */
+class ToylSpecializationShapeTest {
+
+  private static final int WARMUP_CALLS = 10;
+
+  private Context context;
+  private RootNode root;
+
+  @BeforeEach
+  void setUp() {
+    context = Context.create();
+    context.initialize(ToylLanguage.ID);
+    context.enter();
+  }
+
+  @AfterEach
+  void tearDown() {
+    context.leave();
+    context.close();
+  }
+
+  private void run(String program) throws IOException {
+    var frameDescriptor = new FrameDescriptor();
+    var source = Source.newBuilder(ToylLanguage.ID, program, "test").build();
+    root = new ToylRootNode(null, frameDescriptor, ToylLanguage.parseProgram(frameDescriptor, source),
+        source.createSection(0, source.getLength()));
+    CallTarget callTarget = Truffle.getRuntime().createCallTarget(root);
+    for (int i = 0; i < WARMUP_CALLS; i++) {
+      callTarget.call();
+    }
+  }
+
+  private <T extends Node> List<T> nodes(Class<T> type) {
+    return NodeUtil.findAllNodeInstances(root, type);
+  }
+
+  private static List<String> activeSpecializations(Node node) {
+    return Introspection.getSpecializations(node).stream()
+        .filter(Introspection.SpecializationInfo::isActive)
+        .map(Introspection.SpecializationInfo::getMethodName)
+        .toList();
+  }
+
+  private void assertSpecializations(Class<? extends Node> type, String... expected) {
+    assertThat(nodes(type)).isNotEmpty().allSatisfy(node ->
+        assertThat(activeSpecializations(node)).as(node.toString()).containsExactly(expected));
+  }
+
+  @Test
+  void testLongAdditionStaysLong() throws IOException {
+    run("2+3");
+    assertSpecializations(ToylAddNode.class, "addLongs");
+  }
+
+  @Test
+  void testLongVariablesStayInLongSlots() throws IOException {
+    run("""
+        var a = 2
+        var b = 3
+        a = a * b
+        a + b - a / b
+        """);
+    assertSpecializations(ToylVarDeclNode.class, "assignLong");
+    assertSpecializations(ToylAssignmentNode.class, "assignLong");
+    assertSpecializations(ToylVarRefNode.class, "readLong");
+    assertSpecializations(ToylAddNode.class, "addLongs");
+    assertSpecializations(ToylSubNode.class, "subLongs");
+    assertSpecializations(ToylMulNode.class, "mulLongs");
+    assertSpecializations(ToylDivNode.class, "divLongs");
+  }
+
+  @Test
+  void testOverflowReplacesLongSpecialization() throws IOException {
+    run("9223372036854775807 + 1");
+    assertSpecializations(ToylAddNode.class, "addNumbers");
+  }
+
+  @Test
+  void testInexactDivisionReplacesLongSpecialization() throws IOException {
+    run("1/3");
+    assertSpecializations(ToylDivNode.class, "divNumbers");
+  }
+
+  @Test
+  void testExactDivisionStaysLong() throws IOException {
+    run("4/2");
+    assertSpecializations(ToylDivNode.class, "divLongs");
+  }
+
+  @Test
+  void testNegationStaysLong() throws IOException {
+    run("""
+        var a = 2
+        -a
+        """);
+    assertSpecializations(ToylNegNode.class, "negLong");
+  }
+
+  @Test
+  void testNegatingMinValueReplacesLongSpecialization() throws IOException {
+    run("""
+        var a = 0 - 9223372036854775807 - 1
+        -a
+        """);
+    assertSpecializations(ToylNegNode.class, "negNumber");
+  }
+
+  @Test
+  void testDecimalAssignmentGeneralizesSlot() throws IOException {
+    run("""
+        var a = 1
+        a = 1.5
+        a
+        """);
+    assertSpecializations(ToylAssignmentNode.class, "assignNumber");
+    assertSpecializations(ToylVarRefNode.class, "readBigDecimal");
+  }
+
+  @Test
+  void testStatementLoopCanBeUnrolled() throws Exception {
+    run("""
+        var a = 1
+        a = 2
+        a
+        """);
+    var program = nodes(ToylProgramNode.class).get(0);
+    assertThat(NodeUtil.findNodeChildren(program)).hasSize(3);
+    assertThat(ToylProgramNode.class.getMethod("executeGeneric", VirtualFrame.class)
+        .isAnnotationPresent(ExplodeLoop.class)).isTrue();
+  }
+}
@@ -0,0 +1,46 @@
+package toyl;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToylSpecializationTrackerTest {
+
+  private String report(String program) {
+    var err = new ByteArrayOutputStream();
+    try (var context = Context.newBuilder(ToylLanguage.ID)
+        .option("toyl.TraceSpecializations", "true")
+        .err(err)
+        .build()) {
+      context.eval(Source.newBuilder(ToylLanguage.ID, program, "test.toyl").buildLiteral());
+    }
+    return err.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void testReportsOverflowAndInexactDivision() {
+    var report = report("""
+        var a = 1
+        a = 9223372036854775807 + a
+        1/3
+        """);
+    assertThat(report)
+        .contains("test.toyl:2:5")
+        .contains("ToylAddNode")
+        .contains("addLongs -> addNumbers (long overflow)")
+        .contains("9223372036854775807 + a")
+        .contains("test.toyl:3:1")
+        .contains("divLongs -> divNumbers (inexact division)")
+        .contains("assignLong -> assignNumber (slot a generalized from Long to Object)");
+  }
+
+  @Test
+  void testReportsNothingOnTheFastPath() {
+    assertThat(report("var a = 1\na * 2 + 4 / 2")).contains("none").doesNotContain("->");
+  }
+}
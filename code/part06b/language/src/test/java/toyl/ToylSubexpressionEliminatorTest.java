@@ -0,0 +1,126 @@
+package toyl;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.nodes.NodeUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import toyl.ast.ToylAddNode;
+import toyl.ast.ToylMulNode;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylStoreNode;
+import toyl.ast.ToylVarRefNode;
+import toyl.optimizer.ToylSubexpressionEliminator;
+import toyl.parser.ToylPrattParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static toyl.ToylTestSupport.assertEvaluatesLikeWithout;
+import static toyl.ToylTestSupport.source;
+import static toyl.ToylTestSupport.statement;
+
+class ToylSubexpressionEliminatorTest {
+
+  private FrameDescriptor frameDescriptor;
+  private ToylSubexpressionEliminator eliminator;
+
+  private ToylNode eliminate(String program) {
+    frameDescriptor = new FrameDescriptor();
+    eliminator = new ToylSubexpressionEliminator(frameDescriptor);
+    return eliminator.eliminate(new ToylPrattParser(frameDescriptor, source(program)).parseProgram());
+  }
+
+  private static ToylNode value(ToylNode statement) {
+    return (ToylNode) NodeUtil.findNodeChildren(statement).get(0);
+  }
+
+  @Test
+  void testStoresTheFirstOccurrenceAndReadsTheOthers() {
+    var program = eliminate("""
+        var a = 2
+        var b = 3
+        var x = a * b + 1
+        var y = (a * b + 1) * 2
+        a * b + 1
+        """);
+    assertThat(value(statement(program, 2))).isInstanceOfSatisfying(ToylStoreNode.class, store -> {
+      assertThat(store.getName()).isEqualTo("$0");
+      assertThat(value(store)).isInstanceOf(ToylAddNode.class);
+    });
+    assertThat(NodeUtil.findNodeChildren(value(statement(program, 3))).get(0))
+        .isInstanceOfSatisfying(ToylVarRefNode.class, reference -> assertThat(reference.getName()).isEqualTo("$0"));
+    assertThat(statement(program, 4)).isInstanceOfSatisfying(ToylVarRefNode.class, reference -> {
+      assertThat(reference.getName()).isEqualTo("$0");
+      assertThat(reference.getSourceCharIndex()).isEqualTo(62);
+      assertThat(reference.getSourceLength()).isEqualTo(9);
+    });
+    // a * b is only left in the stored expression
+    assertThat(NodeUtil.findAllNodeInstances(program, ToylStoreNode.class)).hasSize(1);
+    assertThat(NodeUtil.findAllNodeInstances(program, ToylMulNode.class)).hasSize(2);
+    assertThat(frameDescriptor.findFrameSlot("$0")).isNotNull();
+    assertThat(eliminator.getEliminatedCount()).isEqualTo(2);
+  }
+
+  @Test
+  void testSharesWithinAStatement() {
+    var program = eliminate("var a = 3\n(a * a) + (a * a) * 2");
+    var sum = statement(program, 1);
+    assertThat(NodeUtil.findNodeChildren(sum).get(0)).isInstanceOf(ToylStoreNode.class);
+    assertThat(NodeUtil.findAllNodeInstances(sum, ToylVarRefNode.class))
+        .extracting(ToylVarRefNode::getName)
+        .containsExactly("a", "a", "$0");
+  }
+
+  @Test
+  void testDoesNotShareAcrossAnAssignmentToAnOperand() {
+    var program = eliminate("""
+        var a = 2
+        var b = a * 3
+        a = 5
+        var c = a * 3
+        a * 3
+        """);
+    assertThat(value(statement(program, 1))).isInstanceOf(ToylMulNode.class);
+    assertThat(value(statement(program, 3))).isInstanceOf(ToylStoreNode.class);
+    assertThat(statement(program, 4)).isInstanceOf(ToylVarRefNode.class);
+    assertThat(eliminator.getEliminatedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void testSharesWhatIsLeftOfContainedExpressions() {
+    var program = eliminate("""
+        var a = 2
+        var b = 3
+        var x = (a * b + a) * 2
+        var y = (a * b + a) * 2
+        a * b + a
+        a * b
+        """);
+    // the repeats inside the second larger expression are gone, each of the three is still read once
+    assertThat(NodeUtil.findAllNodeInstances(program, ToylStoreNode.class))
+        .extracting(ToylStoreNode::getName)
+        .containsExactly("$0", "$1", "$2");
+    assertThat(statement(program, 5)).isInstanceOfSatisfying(ToylVarRefNode.class,
+        reference -> assertThat(reference.getName()).isEqualTo("$2"));
+    assertThat(eliminator.getEliminatedCount()).isEqualTo(3);
+  }
+
+  @Test
+  void testKeepsOperandsOfDifferentScale() {
+    var program = eliminate("var a = 2\na * 2.5 + a * 2.50");
+    assertThat(NodeUtil.findAllNodeInstances(program, ToylStoreNode.class)).isEmpty();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "var a = 2\nvar b = 3\nvar x = a * b + 1\nvar y = (a * b + 1) * 2\ny + (a * b + 1)",
+      "var a = 9223372036854775807\nvar b = a * 2 + a * 2\nb - a * 2",
+      "var a = 1\nvar b = a / 3 + a / 3\nb * (a / 3)",
+      "var a = 2.50\nvar b = a * 3\na * 3 + b",
+      "var a = 1\nvar b = a / 0 + a / 0\nb",
+      "var a = 2\nvar b = a * a\na = a * a\nb + a * a",
+      "var a = 3\n(a * a) + (a * a) * 2",
+  })
+  void testEvaluatesLikeTheProgramWithoutElimination(String program) {
+    assertEvaluatesLikeWithout("toyl.CommonSubexpressionElimination", program);
+  }
+}
@@ -0,0 +1,58 @@
+package toyl;
+
+import com.oracle.truffle.api.nodes.NodeUtil;
+import com.oracle.truffle.api.source.Source;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import toyl.ast.ToylNode;
+import toyl.ast.ToylProgramNode;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Helpers shared by the tests that parse programs into ASTs, and by the tests that run programs with an option
+ * turned on and off.
+ */
+final class ToylTestSupport {
+
+  private ToylTestSupport() {
+  }
+
+  static Source source(String program) {
+    return Source.newBuilder(ToylLanguage.ID, program, "test.toyl").build();
+  }
+
+  /**
+   * @return the tree as NodeUtil prints it, to compare the ASTs of different front ends or passes
+   */
+  static String tree(ToylNode program) {
+    var out = new ByteArrayOutputStream();
+    NodeUtil.printTree(out, program);
+    return out.toString();
+  }
+
+  static ToylNode statement(ToylNode program, int index) {
+    return ((ToylProgramNode) program).getStatements().get(index);
+  }
+
+  /**
+   * @return the result of the program in a context with the option set to the value, or the message of the error
+   * it fails with
+   */
+  static String evalWith(String option, String value, String program) {
+    try (var context = Context.newBuilder(ToylLanguage.ID).option(option, value).build()) {
+      return context.eval(ToylLanguage.ID, program).asString();
+    } catch (PolyglotException e) {
+      return e.getMessage();
+    }
+  }
+
+  /**
+   * Asserts that a boolean option does not change the result of the program, or the error it fails with.
+   */
+  static void assertEvaluatesLikeWithout(String option, String program) {
+    assertThat(evalWith(option, "true", program)).isEqualTo(evalWith(option, "false", program));
+  }
+}
@@ -0,0 +1,53 @@
+package toyl;
+
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.tools.profiler.CPUSampler;
+import com.oracle.truffle.tools.profiler.ProfilerNode;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writes the samples of a CPU sampler in the collapsed stack format understood by flamegraph.pl and
+ * speedscope: one line per stack, frames separated by semicolons, followed by the number of samples.
+ */
+class FlameGraphWriter {
+
+  static void write(CPUSampler sampler, Path file) throws IOException {
+    try (var out = new PrintWriter(Files.newBufferedWriter(file))) {
+      for (var threadNodes : sampler.getThreadToNodesMap().values()) {
+        for (var node : threadNodes) {
+          write(node, new ArrayDeque<>(), out);
+        }
+      }
+    }
+  }
+
+  private static void write(ProfilerNode<CPUSampler.Payload> node, Deque<String> stack, PrintWriter out) {
+    stack.addLast(frame(node));
+    var selfHits = node.getPayload().getSelfHitCount();
+    if (selfHits > 0) {
+      out.printf("%s %d%n", String.join(";", stack), selfHits);
+    }
+    for (var child : node.getChildren()) {
+      write(child, stack, out);
+    }
+    stack.removeLast();
+  }
+
+  private static String frame(ProfilerNode<CPUSampler.Payload> node) {
+    SourceSection section = node.getSourceSection();
+    if (section == null || !section.isAvailable()) {
+      return node.getRootName();
+    }
+    var code = section.getCharacters().toString().replaceAll("\\s+", " ").replace(';', ',');
+    if (code.length() > 60) {
+      code = code.substring(0, 57) + "...";
+    }
+    return "%s:%d %s".formatted(section.getSource().getName(), section.getStartLine(), code);
+  }
+}
@@ -1,26 +1,103 @@
 package toyl;
 
+import com.oracle.truffle.tools.profiler.CPUSampler;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
+import toyl.binary.ToylAstWriter;
+import toyl.binary.ToylMappedBytes;
+import toyl.parser.ToylMappedFile;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 
 public class Launcher {
   public static void main(String[] args) throws IOException {
+    String fileName = null;
+    Path flameGraph = null;
+    Path allocations = null;
+    Path compiled = null;
+    var bench = false;
+    var warmupIterations = 10;
+    var measurementIterations = 20;
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--flamegraph") && i + 1 < args.length) {
+        flameGraph = Path.of(args[++i]);
+      } else if (args[i].equals("--allocations") && i + 1 < args.length) {
+        allocations = Path.of(args[++i]);
+      } else if (args[i].equals("--compile") && i + 1 < args.length) {
+        compiled = Path.of(args[++i]);
+      } else if (args[i].equals("--bench")) {
+        bench = true;
+      } else if (args[i].equals("--warmup") && i + 1 < args.length) {
+        warmupIterations = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--iterations") && i + 1 < args.length) {
+        measurementIterations = Integer.parseInt(args[++i]);
+      } else if (args[i].startsWith("--")) {
+        System.err.println("usage: launcher [--flamegraph <collapsed stacks file>] [--allocations <report file>] "
+            + "[--bench [--warmup <n>] [--iterations <n>]] [--compile <file.toylc>] [<file>]");
+        System.exit(2);
+      } else {
+        fileName = args[i];
+      }
+    }
+
+    if (compiled != null) {
+      if (fileName == null) {
+        System.err.println("--compile needs a .toyl file to compile");
+        System.exit(2);
+      }
+      try {
+        ToylAstWriter.compile(Path.of(fileName), compiled);
+      } catch (RuntimeException error) {
+        System.err.println(error.getMessage());
+        System.exit(1);
+      }
+      return;
+    }
+
     Source source = null;
-    if (args.length == 0) {
+    if (fileName == null) {
       var lineReader = new BufferedReader(new InputStreamReader(System.in));
       source = Source.newBuilder(ToylLanguage.ID, lineReader, "stdin").build();
+    } else if (fileName.endsWith(".toylc")) {
+      // a precompiled program, the AST is read from the mapped file without parsing
+      var file = Path.of(fileName);
+      source = Source.newBuilder(ToylLanguage.ID, ToylMappedBytes.map(file), file.getFileName().toString())
+          .mimeType(ToylLanguage.BINARY_MIME_TYPE)
+          .build();
     } else {
-      var file = new File(args[0]);
-      source = Source.newBuilder(ToylLanguage.ID, file).build();
+      // the source reads the characters from the mapped file instead of holding a copy of it on the heap
+      var file = Path.of(fileName);
+      source = Source.newBuilder(ToylLanguage.ID, ToylMappedFile.map(file), file.getFileName().toString())
+          .uri(file.toUri())
+          .build();
+    }
+    if (bench) {
+      try {
+        ScriptBenchmark.run(source, warmupIterations, measurementIterations, System.out);
+      } catch (PolyglotException error) {
+        System.err.println(error.getMessage());
+        System.exit(1);
+      }
+      return;
     }
-    var context = Context.newBuilder(ToylLanguage.ID).build();
+    var contextBuilder = Context.newBuilder(ToylLanguage.ID);
+    if (allocations != null) {
+      contextBuilder.option("toyl-allocations", "true").option("toyl-allocations.Output", allocations.toString());
+    }
+    var context = contextBuilder.build();
+    CPUSampler sampler = null;
+    if (flameGraph != null) {
+      sampler = CPUSampler.find(context.getEngine());
+      sampler.setMode(CPUSampler.Mode.STATEMENTS);
+      sampler.setPeriod(1);
+      sampler.setCollecting(true);
+    }
+    var exitCode = 0;
     try {
       Value result = context.eval(source);
       System.out.println("result = " + result);
@@ -30,7 +107,21 @@ public class Launcher {
       } else {
         System.err.println(error.getMessage());
       }
-      System.exit(1);
+      // exiting here would skip the finally block, a failing script still gets its profiles
+      exitCode = 1;
+    } finally {
+      try {
+        if (sampler != null) {
+          sampler.setCollecting(false);
+          FlameGraphWriter.write(sampler, flameGraph);
+        }
+      } finally {
+        // instruments write their reports when the engine is closed, also after a failing script
+        context.close();
+      }
+    }
+    if (exitCode != 0) {
+      System.exit(exitCode);
     }
   }
 }
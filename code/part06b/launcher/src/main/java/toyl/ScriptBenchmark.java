@@ -0,0 +1,122 @@
+package toyl;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Evaluates the same source repeatedly in one context and reports the latency distribution of the measured
+ * iterations. Compilations of the script's call target are traced through the engine log, so the report shows
+ * in which iteration the compiled code took over. On a runtime without the Graal compiler nothing is ever
+ * compiled and the numbers are interpreter performance.
+ */
+class ScriptBenchmark {
+
+  private record Compilation(String message, int iteration, long nanos) {
+  }
+
+  /**
+   * Collects the "opt done" lines that engine.TraceCompilation logs for the benchmarked call target.
+   */
+  private static final class CompilationLog extends Handler {
+    private final String rootName;
+    private final long start = System.nanoTime();
+    private final List<Compilation> compilations = new ArrayList<>();
+    private volatile int iteration;
+
+    CompilationLog(String rootName) {
+      this.rootName = rootName;
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record) {
+      var message = record.getMessage();
+      if (message != null && message.contains("opt done") && message.contains(rootName)) {
+        compilations.add(new Compilation(message.strip(), iteration, System.nanoTime() - start));
+      }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    synchronized List<Compilation> getCompilations() {
+      return List.copyOf(compilations);
+    }
+  }
+
+  static void run(Source source, int warmupIterations, int measurementIterations, PrintStream out) {
+    var log = new CompilationLog(source.getName());
+    try (var context = createContext(log)) {
+      Object result = null;
+      for (int i = 0; i < warmupIterations; i++) {
+        log.iteration = i + 1;
+        result = context.eval(source);
+      }
+      var nanos = new long[measurementIterations];
+      for (int i = 0; i < measurementIterations; i++) {
+        log.iteration = warmupIterations + i + 1;
+        var start = System.nanoTime();
+        result = context.eval(source);
+        nanos[i] = System.nanoTime() - start;
+      }
+      report(source, result, warmupIterations, nanos, log.getCompilations(), out);
+    }
+  }
+
+  private static Context createContext(CompilationLog log) {
+    try {
+      return Context.newBuilder(ToylLanguage.ID)
+          .allowExperimentalOptions(true)
+          .option("engine.TraceCompilation", "true")
+          .logHandler(log)
+          .build();
+    } catch (IllegalArgumentException e) {
+      // the fallback runtime has no compilation options
+      return Context.newBuilder(ToylLanguage.ID).build();
+    }
+  }
+
+  private static void report(Source source, Object result, int warmupIterations, long[] nanos,
+                             List<Compilation> compilations, PrintStream out) {
+    out.printf("benchmark %s: %d warmup, %d measurement iterations%n", source.getName(), warmupIterations,
+        nanos.length);
+    out.println("result = " + result);
+    if (nanos.length > 0) {
+      var sorted = nanos.clone();
+      Arrays.sort(sorted);
+      var total = Arrays.stream(nanos).sum();
+      out.printf("  mean %12.3f us%n", total / 1000.0 / nanos.length);
+      out.printf("  p50  %12.3f us%n", percentile(sorted, 50) / 1000.0);
+      out.printf("  p90  %12.3f us%n", percentile(sorted, 90) / 1000.0);
+      out.printf("  p99  %12.3f us%n", percentile(sorted, 99) / 1000.0);
+      out.printf("  max  %12.3f us%n", sorted[sorted.length - 1] / 1000.0);
+      out.printf("  throughput %.1f ops/s%n", nanos.length / (total / 1e9));
+    }
+    if (compilations.isEmpty()) {
+      out.println("  call target not compiled");
+    }
+    for (var compilation : compilations) {
+      out.printf("  compiled in iteration %d, %.1f ms after start: %s%n", compilation.iteration(),
+          compilation.nanos() / 1e6, compilation.message());
+    }
+  }
+
+  /**
+   * @return the nearest-rank percentile of the sorted values
+   */
+  private static long percentile(long[] sorted, double percentile) {
+    var rank = (int) Math.ceil(percentile / 100 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+}